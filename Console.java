@@ -1,6 +1,5 @@
 package project2;
 
-import java.util.Calendar;
 import java.util.GregorianCalendar;
 
 public class Console extends Rental {
@@ -11,6 +10,10 @@ public class Console extends Rental {
     /** a universal version identifier for a Serializable class */
     private static final long serialVersionUID = 1L;
 
+    /** counts and samples the time of pricing a console */
+    private static final Metrics.Timer COST_TIMER = Metrics.sampledTimer("cost_seconds",
+            "Time to price a rental with getCost", "kind", "console");
+
     /** Represents the type of Console, see enum type. */
     private ConsoleTypes consoleType;
 
@@ -27,41 +30,27 @@ public class Console extends Rental {
        
     }
 
+    Console(String nameOfRenter, int rentedOnDay, int dueBackDay, int returnedDay,
+            ConsoleTypes consoleType) {
+        super(nameOfRenter, rentedOnDay, dueBackDay, returnedDay);
+        this.consoleType = consoleType;
+    }
+
     public ConsoleTypes getConsoleType() {
         return consoleType;
     }
 
     public void setConsoleType(ConsoleTypes consoleType) {
         this.consoleType = consoleType;
+        datesChanged();
     }
 
     @Override
-    public double getCost(GregorianCalendar dueBack) {
-        GregorianCalendar gTemp = new GregorianCalendar();
-        double cost = 5;
-        gTemp = (GregorianCalendar) dueBack.clone();     //  gTemp = dueBack;  does not work!
-            
-
- 
-            for (int days = 0; days < 7; days++)  // or             gTemp.add(Calendar.DATE, -7);
-            gTemp.add(Calendar.DATE, -1);
-    
-        while (gTemp.after(rentedOn)) {
-            while (gTemp.after(rentedOn)) {
-                if ((this.consoleType == ConsoleTypes.NintendoSwich) ||
-                        (this.consoleType == ConsoleTypes.PlayStation4Pro) ||
-                        (this.consoleType == ConsoleTypes.SegaGenesisMini))
-                    cost += 1.5;
-    
-                if ((this.consoleType == ConsoleTypes.PlayStation4) ||
-                        (this.consoleType == ConsoleTypes.XBoxOneS))
-                    cost += 1;
-                gTemp.add(Calendar.DATE, -1);
-    
-            }
-        }
-           
-        
+    public double getCost(int checkOutDay) {
+        long start = COST_TIMER.startSampled();
+        double cost = Pricing.consoleCost(DateMath.daysBetween(rentedOnDay, checkOutDay),
+                consoleType);
+        COST_TIMER.stopSampled(start);
         return cost;
     }
 
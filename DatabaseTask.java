@@ -0,0 +1,216 @@
+package project2;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*************************************************************************
+ * Loads or saves the rentals of a ListModel on a background thread so
+ * the GUI keeps responding. Progress is published through the
+ * SwingWorker "progress" property and the task stops early when it is
+ * cancelled. A load only replaces the rentals of the ListModel once the
+ * whole file has been read, all at once on the event thread.
+ *
+ * A cancel runs done straight away, while the working thread may still
+ * be writing a file. The task is only finished, and whenFinished only
+ * run, once done has run and the working thread has also returned.
+ ************************************************************************/
+
+public class DatabaseTask extends SwingWorker<Void, Void> implements ProgressListener {
+
+    /** the kinds of work a task can do */
+    public enum Kind {
+        LOAD_DATABASE,
+        LOAD_TEXT,
+        SAVE_DATABASE,
+        SAVE_TEXT
+    }
+
+    /** what this task does */
+    private final Kind kind;
+
+    /** the model the rentals are loaded into or saved from */
+    private final ListModel model;
+
+    /** the file to load or save */
+    private final String filename;
+
+    /** rentals to save, or the rentals that were loaded */
+    private ArrayList<Rental> rentals;
+
+    /** the open journal of the file being saved, null if none */
+    private final RentalJournal currentJournal;
+
+    /** journal of the file that was loaded, null if none */
+    private volatile RentalJournal newJournal;
+
+    /** called on the event thread when the task has finished */
+    private final Runnable whenFinished;
+
+    /** the working thread has not started */
+    private static final int WAITING = 0;
+
+    /** the working thread is in doInBackground */
+    private static final int WORKING = 1;
+
+    /** the working thread has returned, or will never start */
+    private static final int RETURNED = 2;
+
+    /** where the working thread is, WAITING, WORKING or RETURNED */
+    private final AtomicInteger stage = new AtomicInteger(WAITING);
+
+    /** true once done has run, only used on the event thread */
+    private boolean doneRun;
+
+    /** true once whenFinished has run, only used on the event thread */
+    private boolean finished;
+
+    /******************************************************************
+     * Prepares a task, must be called on the event thread. A save
+     * works on a copy of the list taken now, so the rentals must not
+     * be changed until the task has finished.
+     *
+     * @param kind what the task does
+     * @param model the model to load into or save from
+     * @param filename the file to load or save
+     * @param whenFinished run on the event thread when the task is
+     * done, cancelled or failed, and its working thread has returned
+     *****************************************************************/
+    public DatabaseTask(Kind kind, ListModel model, String filename, Runnable whenFinished) {
+        this.kind = kind;
+        this.model = model;
+        this.filename = filename;
+        this.whenFinished = whenFinished;
+
+        if (kind == Kind.SAVE_DATABASE || kind == Kind.SAVE_TEXT)
+            rentals = model.getRentalsSnapshot();
+        currentJournal = kind == Kind.SAVE_DATABASE ? model.getJournal(filename) : null;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        // a task cancelled before it started does nothing
+        if (!stage.compareAndSet(WAITING, WORKING))
+            return null;
+
+        try {
+            switch (kind) {
+                case LOAD_DATABASE:
+                    rentals = ListModel.readDatabase(filename, this);
+                    if (!isCancelled())
+                        newJournal = RentalJournal.resume(
+                                ListModel.journalFile(filename), rentals);
+                    break;
+
+                case LOAD_TEXT:
+                    rentals = ListModel.readText(filename, this);
+                    break;
+
+                case SAVE_DATABASE:
+                    // the file and its journal already hold every change
+                    if (ListModel.canSync(currentJournal, filename))
+                        currentJournal.sync();
+                    else
+                        saveDatabase();
+                    break;
+
+                case SAVE_TEXT:
+                    if (!ListModel.writeText(rentals, filename, this))
+                        throw new IOException("Could not write " + filename);
+                    break;
+            }
+        } finally {
+            stage.set(RETURNED);
+            SwingUtilities.invokeLater(this::finish);
+        }
+        return null;
+    }
+
+    /******************************************************************
+     * Publishes progress as a percent, called from the working thread.
+     *
+     * @param done how much of the work is done
+     * @param total how much work there is in all
+     *****************************************************************/
+    @Override
+    public void progress(long done, long total) {
+        if (total > 0)
+            setProgress((int) Math.min(100, done * 100 / total));
+    }
+
+    /******************************************************************
+     * Writes the database file. Once the new file has been moved into
+     * place the save can no longer be undone, so the new journal is
+     * handed to the model even if the task has been cancelled, and a
+     * journal closed by a save that then failed is taken away from it.
+     *
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    private void saveDatabase() throws IOException {
+        RentalJournal saved = null;
+        try {
+            saved = ListModel.writeDatabase(rentals, filename, currentJournal, this);
+        } finally {
+            // queued for the event thread, which also works after a cancel has run done
+            RentalJournal handed = saved;
+            if (saved != null || (currentJournal != null && currentJournal.isClosed()))
+                SwingUtilities.invokeLater(() -> model.attachJournal(handed,
+                        handed == null ? null : filename));
+        }
+    }
+
+    @Override
+    protected void done() {
+        try {
+            // a cancelled load leaves the rentals as they were
+            if (isCancelled())
+                return;
+
+            get();
+            switch (kind) {
+                case LOAD_DATABASE:
+                    model.replaceRentals(rentals, newJournal, filename);
+                    break;
+                case LOAD_TEXT:
+                    model.replaceRentals(rentals, null, null);
+                    break;
+                default:
+                    break;
+            }
+        } catch (ExecutionException ex) {
+            String action = kind == Kind.LOAD_DATABASE || kind == Kind.LOAD_TEXT
+                    ? "Loading" : "Saving";
+            JOptionPane.showMessageDialog(null, action + " problem: " + filename
+                    + "\n" + ex.getCause().getMessage());
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(null, "Problem with " + filename);
+        } finally {
+            doneRun = true;
+            stage.compareAndSet(WAITING, RETURNED);
+            finish();
+        }
+    }
+
+    /******************************************************************
+     * Finishes the task on the event thread once done has run and the
+     * working thread has returned, whichever comes last. A journal
+     * opened by a load that was cancelled is closed, since the model
+     * never got it.
+     *****************************************************************/
+    private void finish() {
+        if (finished || !doneRun || stage.get() != RETURNED)
+            return;
+        finished = true;
+        try {
+            if (isCancelled() && newJournal != null)
+                newJournal.close();
+        } catch (IOException ex) {
+            System.err.println("Loading problem: " + ex.getMessage());
+        } finally {
+            newJournal = null;
+            whenFinished.run();
+        }
+    }
+}
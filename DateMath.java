@@ -0,0 +1,223 @@
+package project2;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/*************************************************************************
+ * Constant-time date arithmetic for rentals. Dates are reduced to an
+ * epoch day (days since 1/1/1970) so the difference between two dates
+ * is a subtraction instead of a day-by-day calendar walk.
+ ************************************************************************/
+
+public final class DateMath {
+
+    /** milliseconds in one day */
+    public static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /** time zone used for "today", same as a default GregorianCalendar */
+    private static final TimeZone ZONE = TimeZone.getDefault();
+
+    /** formats dates the way the screens and the text format show them */
+    public static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private DateMath() {
+    }
+
+    /******************************************************************
+     * Converts a year, month and day into an epoch day using the
+     * proleptic Gregorian calendar.
+     *
+     * @param year the full year, e.g. 2020
+     * @param month the month, 1 through 12
+     * @param day the day of the month, 1 through 31
+     * @return the number of days since 1/1/1970
+     *****************************************************************/
+    public static int epochDay(int year, int month, int day) {
+        // shift the year so that it starts in March, leap day is last
+        if (month <= 2)
+            year--;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /******************************************************************
+     * Converts a year, month and day into an epoch day the way a
+     * lenient calendar does, so a month past 12 or a day past the end
+     * of the month rolls over into the next year or month.
+     *
+     * @param year the full year, e.g. 2020
+     * @param month the month, 1 for January
+     * @param day the day of the month
+     * @return the number of days since 1/1/1970
+     *****************************************************************/
+    public static int lenientEpochDay(int year, int month, int day) {
+        year += Math.floorDiv(month - 1, 12);
+        month = Math.floorMod(month - 1, 12) + 1;
+        return epochDay(year, month, 1) + day - 1;
+    }
+
+    /******************************************************************
+     * Formats an epoch day as month/day/year.
+     *
+     * @param epochDay the number of days since 1/1/1970
+     * @return the date, such as 01/20/2020
+     *****************************************************************/
+    public static String format(int epochDay) {
+        return DATE_FORMAT.format(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /******************************************************************
+     * Converts an epoch day into a GregorianCalendar set to midnight of
+     * that day in the local time zone.
+     *
+     * @param epochDay the number of days since 1/1/1970
+     * @return a new calendar for that day
+     *****************************************************************/
+    public static GregorianCalendar toCalendar(int epochDay) {
+        // inverse of epochDay(year, month, day), years start in March
+        int days = epochDay + 719468;
+        int era = (days >= 0 ? days : days - 146096) / 146097;
+        int dayOfEra = days - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+                - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return new GregorianCalendar(year, month - 1, day);
+    }
+
+    /******************************************************************
+     * Converts the calendar date of a GregorianCalendar into an epoch
+     * day, ignoring the time of day.
+     *
+     * @param date the date to convert
+     * @return the number of days since 1/1/1970
+     *****************************************************************/
+    public static int epochDay(GregorianCalendar date) {
+        return epochDay(date.get(Calendar.YEAR), date.get(Calendar.MONTH) + 1,
+                date.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /******************************************************************
+     * Returns the wall clock time of a date in milliseconds after
+     * midnight.
+     *
+     * @param date the date to read
+     * @return milliseconds since the start of that day
+     *****************************************************************/
+    public static int millisOfDay(GregorianCalendar date) {
+        return ((date.get(Calendar.HOUR_OF_DAY) * 60
+                + date.get(Calendar.MINUTE)) * 60
+                + date.get(Calendar.SECOND)) * 1000
+                + date.get(Calendar.MILLISECOND);
+    }
+
+    /******************************************************************
+     * Counts the days between two dates. Gives the same answer as
+     * stepping endDate back one day at a time while it is still after
+     * startDate, so a later time of day on endDate counts as one more
+     * day and a startDate after endDate gives 0.
+     *
+     * @param startDate the earlier date
+     * @param endDate the later date
+     * @return how many days are between both dates, never negative
+     *****************************************************************/
+    public static int daysBetween(GregorianCalendar startDate, GregorianCalendar endDate) {
+        return daysBetween(epochDay(startDate), millisOfDay(startDate),
+                epochDay(endDate), millisOfDay(endDate));
+    }
+
+    /******************************************************************
+     * Counts the days between two epoch days.
+     *
+     * @param startDay the earlier day
+     * @param endDay the later day
+     * @return how many days are between both days, never negative
+     *****************************************************************/
+    public static int daysBetween(int startDay, int endDay) {
+        return Math.max(endDay - startDay, 0);
+    }
+
+    /******************************************************************
+     * Counts the days from midnight of an epoch day until the moment
+     * given, with the same rules as daysBetween. Any time after
+     * midnight today counts as one more day.
+     *
+     * @param pastDay the epoch day to count from
+     * @param nowMillis the current time, as from System.currentTimeMillis
+     * @return how many days late pastDay is, never negative
+     *****************************************************************/
+    public static int daysLate(int pastDay, long nowMillis) {
+        long local = nowMillis + ZONE.getOffset(nowMillis);
+        return daysBetween(pastDay, 0,
+                (int) Math.floorDiv(local, MILLIS_PER_DAY),
+                (int) Math.floorMod(local, MILLIS_PER_DAY));
+    }
+
+    /******************************************************************
+     * Returns the epoch day lateness is counted from at a moment, so
+     * that daysLate(day, nowMillis) equals the larger of 0 and
+     * daysLateBase(nowMillis) - day. Due dates before it are late.
+     *
+     * @param nowMillis the current time, as from System.currentTimeMillis
+     * @return today, plus one once today has started
+     *****************************************************************/
+    public static int daysLateBase(long nowMillis) {
+        long local = nowMillis + ZONE.getOffset(nowMillis);
+        int base = (int) Math.floorDiv(local, MILLIS_PER_DAY);
+        if (Math.floorMod(local, MILLIS_PER_DAY) > 0)
+            base++;
+        return base;
+    }
+
+    /******************************************************************
+     * Counts the days from a date until the moment given, with the
+     * same rules as daysBetween.
+     *
+     * @param pastDate the date to count from
+     * @param nowMillis the current time, as from System.currentTimeMillis
+     * @return how many days late pastDate is, never negative
+     *****************************************************************/
+    public static int daysLate(GregorianCalendar pastDate, long nowMillis) {
+        long local = nowMillis + ZONE.getOffset(nowMillis);
+        return daysBetween(epochDay(pastDate), millisOfDay(pastDate),
+                (int) Math.floorDiv(local, MILLIS_PER_DAY),
+                (int) Math.floorMod(local, MILLIS_PER_DAY));
+    }
+
+    /******************************************************************
+     * Returns the local epoch day of a moment in time.
+     *
+     * @param nowMillis the moment, as from System.currentTimeMillis
+     * @return the number of days since 1/1/1970 in the local time zone
+     *****************************************************************/
+    public static int today(long nowMillis) {
+        return (int) Math.floorDiv(nowMillis + ZONE.getOffset(nowMillis), MILLIS_PER_DAY);
+    }
+
+    /******************************************************************
+     * Counts the days from a date until right now.
+     *
+     * @param pastDate the date to count from
+     * @return how many days late pastDate is, never negative
+     *****************************************************************/
+    public static int daysLate(GregorianCalendar pastDate) {
+        return daysLate(pastDate, System.currentTimeMillis());
+    }
+
+    private static int daysBetween(int startDay, int startMillis, int endDay, int endMillis) {
+        int days = endDay - startDay;
+        if (endMillis > startMillis)
+            days++;
+        return Math.max(days, 0);
+    }
+}
@@ -0,0 +1,237 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/*************************************************************************
+ * The rows of a RentalColumns that have not been returned, kept in a
+ * tree keyed by the epoch day they are due back, each day's rows in
+ * ascending order. Asking which rentals are due in a range of days only
+ * visits the days in that range and merges their rows, so it costs the
+ * size of the answer times the log of the number of days, instead of a
+ * pass over every rental. A caller that sorts the rows again itself
+ * can skip the merge and take them day by day, which only costs the
+ * size of the answer. Adding a row after every row already due on its
+ * day, as RentalColumns does, takes constant time; removing one finds
+ * it by binary search.
+ ************************************************************************/
+
+public class DueDateIndex {
+
+    /** rows due back on every day that has any */
+    private final TreeMap<Integer, Bucket> byDay = new TreeMap<>();
+
+    /** number of rows in the index */
+    private int size;
+
+    /******************************************************************
+     * Adds a row that is due back on a day.
+     *
+     * @param row the row of the rental
+     * @param dueDay the epoch day it is due back
+     *****************************************************************/
+    public void add(int row, int dueDay) {
+        Bucket bucket = byDay.get(dueDay);
+        if (bucket == null) {
+            bucket = new Bucket();
+            byDay.put(dueDay, bucket);
+        }
+        bucket.add(row);
+        size++;
+    }
+
+    /******************************************************************
+     * Removes a row, such as when it has been returned.
+     *
+     * @param row the row of the rental
+     * @param dueDay the epoch day it was added with
+     * @return true if the row was in the index
+     *****************************************************************/
+    public boolean remove(int row, int dueDay) {
+        Bucket bucket = byDay.get(dueDay);
+        if (bucket == null || !bucket.remove(row))
+            return false;
+        if (bucket.size == 0)
+            byDay.remove(dueDay);
+        size--;
+        return true;
+    }
+
+    /******************************************************************
+     * Returns the number of rows in the index.
+     *
+     * @return how many rentals are not returned
+     *****************************************************************/
+    public int size() {
+        return size;
+    }
+
+    /******************************************************************
+     * Returns the rows due back on any day of a range.
+     *
+     * @param fromDay the first epoch day of the range
+     * @param toDay the last epoch day of the range
+     * @return the rows, in ascending order
+     *****************************************************************/
+    public int[] dueBetween(int fromDay, int toDay) {
+        if (fromDay > toDay)
+            return new int[0];
+        return collect(byDay.subMap(fromDay, true, toDay, true).values());
+    }
+
+    /******************************************************************
+     * Returns the rows due back on any day of a range, a day at a time
+     * from the first day, without merging them into one order. Rows due
+     * on the same day are in ascending order.
+     *
+     * @param fromDay the first epoch day of the range
+     * @param toDay the last epoch day of the range
+     * @return the rows, grouped by the day they are due back
+     *****************************************************************/
+    public int[] dueBetweenByDay(int fromDay, int toDay) {
+        if (fromDay > toDay)
+            return new int[0];
+        Collection<Bucket> buckets = byDay.subMap(fromDay, true, toDay, true).values();
+        int count = 0;
+        for (Bucket bucket : buckets)
+            count += bucket.size;
+
+        int[] rows = new int[count];
+        int at = 0;
+        for (Bucket bucket : buckets) {
+            System.arraycopy(bucket.rows, 0, rows, at, bucket.size);
+            at += bucket.size;
+        }
+        return rows;
+    }
+
+    /******************************************************************
+     * Returns the rows due back before a day.
+     *
+     * @param day the first epoch day that is left out
+     * @return the rows, in ascending order
+     *****************************************************************/
+    public int[] dueBefore(int day) {
+        return collect(byDay.headMap(day, false).values());
+    }
+
+    /******************************************************************
+     * Returns the rows due back from today through the next few days.
+     *
+     * @param days how many days after today to include
+     * @param nowMillis the current time, as from System.currentTimeMillis
+     * @return the rows, in ascending order
+     *****************************************************************/
+    public int[] dueWithin(int days, long nowMillis) {
+        int today = DateMath.today(nowMillis);
+        return dueBetween(today, today + days);
+    }
+
+    /******************************************************************
+     * Returns the rows that are at least some days late, counted the
+     * same way as Rental.getDaysLate.
+     *
+     * @param days the fewest days late to include, at least 1
+     * @param nowMillis the current time, as from System.currentTimeMillis
+     * @return the rows, in ascending order
+     *****************************************************************/
+    public int[] lateBy(int days, long nowMillis) {
+        // daysLate is daysLateBase - dueDay, so dueDay <= base - days
+        return dueBefore(DateMath.daysLateBase(nowMillis) - Math.max(days, 1) + 1);
+    }
+
+    /******************************************************************
+     * Merges the sorted rows of some days into one sorted array, since
+     * callers need the rows in list order. The day holding the lowest
+     * next row is kept at the top of a binary heap.
+     *****************************************************************/
+    private static int[] collect(Collection<Bucket> buckets) {
+        int count = 0;
+        Bucket[] heap = new Bucket[buckets.size()];
+        int[] next = new int[heap.length];
+        int days = 0;
+        for (Bucket bucket : buckets) {
+            count += bucket.size;
+            heap[days++] = bucket;
+        }
+
+        int[] rows = new int[count];
+        if (days == 1) {
+            System.arraycopy(heap[0].rows, 0, rows, 0, count);
+            return rows;
+        }
+        for (int i = days / 2 - 1; i >= 0; i--)
+            siftDown(heap, next, i, days);
+
+        for (int at = 0; at < count; at++) {
+            Bucket top = heap[0];
+            rows[at] = top.rows[next[0]++];
+            if (next[0] == top.size) {
+                days--;
+                heap[0] = heap[days];
+                next[0] = next[days];
+            }
+            siftDown(heap, next, 0, days);
+        }
+        return rows;
+    }
+
+    /** moves heap entry i down until its next row is below its children's */
+    private static void siftDown(Bucket[] heap, int[] next, int i, int days) {
+        while (true) {
+            int lowest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < days && heap[left].rows[next[left]] < heap[lowest].rows[next[lowest]])
+                lowest = left;
+            if (right < days && heap[right].rows[next[right]] < heap[lowest].rows[next[lowest]])
+                lowest = right;
+            if (lowest == i)
+                return;
+            Bucket bucket = heap[i];
+            heap[i] = heap[lowest];
+            heap[lowest] = bucket;
+            int position = next[i];
+            next[i] = next[lowest];
+            next[lowest] = position;
+            i = lowest;
+        }
+    }
+
+    /*********************************************************************
+     * The rows due back on one day, in ascending order.
+     *********************************************************************/
+    private static class Bucket {
+
+        /** the rows, the first size entries are used */
+        private int[] rows = new int[4];
+
+        /** number of rows in the bucket */
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length)
+                rows = Arrays.copyOf(rows, size * 2);
+
+            // rows are usually added in order and go at the end
+            int at = size;
+            if (size > 0 && rows[size - 1] > row) {
+                at = Arrays.binarySearch(rows, 0, size, row);
+                at = at < 0 ? -at - 1 : at;
+                System.arraycopy(rows, at, rows, at + 1, size - at);
+            }
+            rows[at] = row;
+            size++;
+        }
+
+        boolean remove(int row) {
+            int at = Arrays.binarySearch(rows, 0, size, row);
+            if (at < 0)
+                return false;
+            System.arraycopy(rows, at + 1, rows, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
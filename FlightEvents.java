@@ -0,0 +1,127 @@
+package project2;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*************************************************************************
+ * JDK Flight Recorder events of the rental store. They cost next to
+ * nothing unless a recording is running, and a recording can be
+ * started on a running store without any agent:
+ *
+ *     jcmd <pid> JFR.start name=store filename=store.jfr
+ *
+ * The events are in the "Game Store" category of JDK Mission Control.
+ ************************************************************************/
+
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    /*********************************************************************
+     * Every screen being rebuilt from all rentals.
+     *********************************************************************/
+    @Name("project2.ScreenUpdate")
+    @Label("Screen Update")
+    @Category("Game Store")
+    @Description("Every screen rebuilt from all rentals by ListModel.updateScreen")
+    public static class ScreenUpdate extends Event {
+
+        /** the screen being shown */
+        @Label("Display")
+        String display;
+
+        /** rentals the screens were built from */
+        @Label("Rentals")
+        int rentals;
+
+        /** rows on the screen being shown */
+        @Label("Rows")
+        int rows;
+    }
+
+    /*********************************************************************
+     * A whole file being read or written.
+     *********************************************************************/
+    @Name("project2.FileOperation")
+    @Label("File Operation")
+    @Category("Game Store")
+    @Description("A database or text file read or written")
+    public static class FileOperation extends Event {
+
+        /** the ListModel method, such as readDatabase */
+        @Label("Operation")
+        String operation;
+
+        /** the file */
+        @Label("File")
+        String file;
+
+        /** size of the file afterwards */
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        /** rentals read or written, -1 if it failed */
+        @Label("Records")
+        int records;
+
+        /******************************************************************
+         * Creates the event of an operation that is starting.
+         *
+         * @param operation the ListModel method, such as readDatabase
+         * @param file the file read or written
+         * @return the event, to be finished with done
+         *****************************************************************/
+        static FileOperation start(String operation, String file) {
+            FileOperation event = new FileOperation();
+            event.operation = operation;
+            event.file = file;
+            event.begin();
+            return event;
+        }
+
+        /******************************************************************
+         * Finishes the event and records it if a recording wants it.
+         *
+         * @param records rentals read or written, -1 if it failed
+         *****************************************************************/
+        void done(int records) {
+            end();
+            if (shouldCommit()) {
+                this.records = records;
+                bytes = new File(file).length();
+                commit();
+            }
+        }
+    }
+
+    /*********************************************************************
+     * A rental being rented or returned in the GUI, from when the
+     * dialog is closed until the screens are up to date.
+     *********************************************************************/
+    @Name("project2.RentalAction")
+    @Label("Rental Action")
+    @Category("Game Store")
+    @Description("A game or console rented or returned in the GUI")
+    public static class RentalAction extends Event {
+
+        /** rentGame, rentConsole or return */
+        @Label("Action")
+        String action;
+
+        /** the renter */
+        @Label("Renter")
+        String renter;
+
+        /** rentals in the store afterwards */
+        @Label("Rentals")
+        int rentals;
+    }
+}
@@ -122,10 +122,30 @@ public class GUIRentalStore extends JFrame implements ActionListener {
         add(panel);
         scrollList.setPreferredSize(new Dimension(1000,800));
 
+        // works out the rows around the visible ones after they are painted
+        scrollList.getViewport().addChangeListener(e ->
+                SwingUtilities.invokeLater(this::prefetchVisibleRows));
+
         setVisible(true);
         setSize(1070,950);
     }
 
+    /******************************************************************
+     * Has the table model work out the rows just above and below the
+     * part of the table that can be seen.
+     *****************************************************************/
+    private void prefetchVisibleRows() {
+        Rectangle visible = scrollList.getViewport().getViewRect();
+        int first = jTable.rowAtPoint(visible.getLocation());
+        int last = jTable.rowAtPoint(new Point(visible.x,
+                visible.y + visible.height - 1));
+        if (first == -1)
+            return;
+        if (last == -1)
+            last = jTable.getRowCount() - 1;
+        dList.prefetchRows(first, last);
+    }
+
     public void actionPerformed(ActionEvent e) {
         Object comp = e.getSource();
 
@@ -170,9 +190,9 @@ public class GUIRentalStore extends JFrame implements ActionListener {
             if (status == JFileChooser.APPROVE_OPTION) {
                 String filename = chooser.getSelectedFile().getAbsolutePath();
                 if (openSerItem == comp)
-                    dList.loadDatabase(filename);
+                    runTask(DatabaseTask.Kind.LOAD_DATABASE, filename, "Loading");
                 else if (openTextItem == comp)
-                    dList.loadFromText((filename));
+                    runTask(DatabaseTask.Kind.LOAD_TEXT, filename, "Loading");
             }
         }
 
@@ -182,27 +202,34 @@ public class GUIRentalStore extends JFrame implements ActionListener {
             if (status == JFileChooser.APPROVE_OPTION) {
                 String filename = chooser.getSelectedFile().getAbsolutePath();
                 if (saveSerItem == e.getSource())
-                    dList.saveDatabase(filename);
+                    runTask(DatabaseTask.Kind.SAVE_DATABASE, filename, "Saving");
                 else if (saveTextItem == comp)
-                    dList.saveAsText(filename);
+                    runTask(DatabaseTask.Kind.SAVE_TEXT, filename, "Saving");
             }
         }
 
         if(e.getSource() == exitItem){
+            dList.closeJournal();
             System.exit(1);
         }
         if(e.getSource() == rentConsoleItem){
             Console Console = new Console();
             RentConsoleDialog dialog = new RentConsoleDialog(this, Console);
             if(dialog.getCloseStatus() == RentConsoleDialog.OK){
+                FlightEvents.RentalAction event = new FlightEvents.RentalAction();
+                event.begin();
                 dList.add(Console);
+                commitAction(event, "rentConsole", Console);
             }
         }
         if(e.getSource() == rentGameItem){
             Game gameOnly = new Game();
             RentGameDialog dialog = new RentGameDialog(this, gameOnly);
             if(dialog.getCloseStatus() == RentGameDialog.OK){
+                FlightEvents.RentalAction event = new FlightEvents.RentalAction();
+                event.begin();
                 dList.add(gameOnly);
+                commitAction(event, "rentGame", gameOnly);
             }
         }
 
@@ -214,19 +241,82 @@ public class GUIRentalStore extends JFrame implements ActionListener {
                 Rental unit = dList.get(index);
                 ReturnedOnDialog dialog = new ReturnedOnDialog(this, unit);
 
-                if(unit.actualDateReturned != null){
+                if(unit.isReturned()){
                 JOptionPane.showMessageDialog(null,
-                        "  Be sure to thank " + unit.nameOfRenter +
+                        "  Be sure to thank " + unit.getDisplayName() +
                                 "\n for renting with us. The price is:  " +
-                                unit.getCost(unit.actualDateReturned) +
+                                unit.getRealCost() +
                                 " dollars");
+                FlightEvents.RentalAction event = new FlightEvents.RentalAction();
+                event.begin();
                 dList.update(index, unit);
+                commitAction(event, "return", unit);
                 }
             }
         }
     }
 
+    /**************************************************************
+     Loads or saves a file on a background thread. The window keeps
+     responding and the screens can still be switched, but the items
+     that change the rentals are turned off until the task is done.
+
+     @param kind what the task does
+     @param filename the file to load or save
+     @param action word shown in the progress box
+     **************************************************************/
+    private void runTask(DatabaseTask.Kind kind, String filename, String action) {
+        ProgressMonitor monitor = new ProgressMonitor(this, action + " " + filename,
+                null, 0, 100);
+        setChangesEnabled(false);
+
+        DatabaseTask task = new DatabaseTask(kind, dList, filename, () -> {
+            monitor.close();
+            setChangesEnabled(true);
+        });
+        task.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName()))
+                monitor.setProgress((Integer) evt.getNewValue());
+            if (monitor.isCanceled())
+                task.cancel(false);
+        });
+        task.execute();
+    }
+
+    /**************************************************************
+     Turns the menu items that load, save or change rentals on or off.
+
+     @param enabled true to turn the items on
+     **************************************************************/
+    private void setChangesEnabled(boolean enabled) {
+        openSerItem.setEnabled(enabled);
+        saveSerItem.setEnabled(enabled);
+        openTextItem.setEnabled(enabled);
+        saveTextItem.setEnabled(enabled);
+        rentConsoleItem.setEnabled(enabled);
+        rentGameItem.setEnabled(enabled);
+        returnItem.setEnabled(enabled);
+    }
+
+    /******************************************************************
+     * Records a rent or return in a running flight recording.
+     *
+     * @param event the event, begun before the rental was changed
+     * @param action rentGame, rentConsole or return
+     * @param unit the rental
+     *****************************************************************/
+    private void commitAction(FlightEvents.RentalAction event, String action, Rental unit) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.renter = unit.getNameOfRenter();
+            event.rentals = dList.getRentalCount();
+            event.commit();
+        }
+    }
+
     public static void main(String[] args) {
+        Metrics.startFromProperties();
         new GUIRentalStore();
     }
 }
\ No newline at end of file
@@ -1,14 +1,15 @@
 package project2;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.GregorianCalendar;
 
 public class Game extends Rental {
 
     /** a universal version identifier for a Serializable class */
     private static final long serialVersionUID = 1L;
+
+    /** counts and samples the time of pricing a game */
+    private static final Metrics.Timer COST_TIMER = Metrics.sampledTimer("cost_seconds",
+            "Time to price a rental with getCost", "kind", "game");
     
     /** represents the name of the game */
     private String nameGame;
@@ -30,6 +31,13 @@ public class Game extends Rental {
         this.console = console;
     }
 
+    Game(String nameOfRenter, int rentedOnDay, int dueBackDay, int returnedDay,
+         String nameGame, ConsoleTypes console) {
+        super(nameOfRenter, rentedOnDay, dueBackDay, returnedDay);
+        this.nameGame = nameGame;
+        this.console = console;
+    }
+
     public String getNameGame() {
         return nameGame;
     }
@@ -44,43 +52,14 @@ public class Game extends Rental {
 
     public void setConsole(ConsoleTypes console) {
         this.console = console;
+        datesChanged();
     }
 
     @Override
-    public double getCost(GregorianCalendar dueBack) {
-        double cost = 0;
-        if (console != null) {
-            Console temp = new Console(this.nameOfRenter, rentedOn, this.dueBack,
-                    actualDateReturned, console);
-            cost += temp.getCost(dueBack);
-        }
-
-        GregorianCalendar gTemp = new GregorianCalendar();
-        
-        
-
-
-            cost += 3;
-
-        gTemp = (GregorianCalendar) dueBack.clone();     //       gTemp = dueBack;  does not work!!
-
-            
-        DateFormat formatter = new SimpleDateFormat("MM/dd/yyyy");
-        //     System.out.println(formatter.format(gTemp.getTime()));
-     
-             for (int days = 0; days < 7; days++)
-                 gTemp.add(Calendar.DATE, -1);
-     
-     //        System.out.println(formatter.format(gTemp.getTime()));
-     //        System.out.println(formatter.format(rentedOn.getTime()));
-     
-             while (gTemp.after(rentedOn)) {
-                 cost += .5;
-                 gTemp.add(Calendar.DATE, -1);
-             }
-        
-
-        
+    public double getCost(int checkOutDay) {
+        long start = COST_TIMER.startSampled();
+        double cost = Pricing.gameCost(DateMath.daysBetween(rentedOnDay, checkOutDay), console);
+        COST_TIMER.stopSampled(start);
         return cost;
     }
 
@@ -1,15 +1,16 @@
+package project2;
 
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 import java.io.*;
-import java.text.DateFormat;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /*************************************************************************
  * Class to create, organize, load, and save lists of Rental objects for
@@ -30,34 +31,57 @@ import java.util.Scanner;
     /** holds only the rentals that are to be displayed */
     private ArrayList<Rental> filteredListRentals;
 
+    /** every rental stored by column, row i holding listOfRentals.get(i) */
+    private RentalColumns columns;
+
+    /** finds the rentals of a renter by name */
+    private RenterIndex renters;
+
+    /** sorted list of rentals for every screen */
+    private EnumMap<ScreenDisplay, ScreenView> views;
+
+    /** number of open bulk sessions, screens are not kept up to date while above 0 */
+    private int bulkDepth;
+
+    /** journal of changes since the database file was saved, null if none */
+    private transient RentalJournal journal;
+
+    /** the database file the journal belongs to */
+    private transient String journalDatabase;
+
     /** current screen being displayed */
     private ScreenDisplay display = ScreenDisplay.CurrentRentalStatus;
 
-    /** 
-     * list of collumns needed for Current Rental Screen, both Within 7 Days Screens,
-     * and 14 Days Late Screen.
-     */
-    private String[] columnNamesCurrentRentals = {"Renter\'s Name", "Est. Cost",
-            "Rented On", "Due Date ", "Console", "Name of the Game"};
-    
-    /** list of collumns needed for Returned Screen */
-    private String[] columnNamesReturned = {"Renter\'s Name", "Rented On Date",
-            "Due Date", "Actual date returned ", "Est. Cost", " Real Cost"};
-
-    /** list of collumns needed for Everything Screen */
-    private String[] columnEverything = {"Renter\'s Name", "Rented On Date",
-            "Due Date", "Actual date returned ", "Est. Cost", " Real Cost",
-            "Console", "Name of the Game"};
-    
-    /** list of collumns needed for Late Rentals Screen */
-    private String[] columnLate = {"Renter\'s Name", "Est. Cost",
-            "Rented On", "Due Date ", "No. of Days Late", "Console", "Name of the Game"};
+    /** cell values of the rows near the visible part of the table */
+    private transient RowCache rowCache;
 
-    /** standard formatter for all dates displayed in GUI */
-    private DateFormat formatter = new SimpleDateFormat("MM/dd/yyyy");
+    /** time to rebuild every screen, by the screen being shown */
+    private static final EnumMap<ScreenDisplay, Metrics.Timer> UPDATE_TIMERS =
+            new EnumMap<>(ScreenDisplay.class);
+
+    static {
+        for (ScreenDisplay screen : ScreenDisplay.values())
+            UPDATE_TIMERS.put(screen, Metrics.timer("update_screen_seconds",
+                    "Time to rebuild every screen, by the screen shown", "screen",
+                    screen.name()));
+    }
+
+    /** counts and samples the time of getting a table cell */
+    private static final Metrics.Timer CELL_TIMER = Metrics.sampledTimer("cell_seconds",
+            "Time to get a table cell with getValueAt", null, null);
+
+    /** time to write a database file */
+    private static final Metrics.Timer WRITE_DATABASE_TIMER = fileTimer("writeDatabase");
+
+    /** time to read a database file */
+    private static final Metrics.Timer READ_DATABASE_TIMER = fileTimer("readDatabase");
+
+    /** time to write a text file */
+    private static final Metrics.Timer WRITE_TEXT_TIMER = fileTimer("writeText");
+
+    /** time to read a text file */
+    private static final Metrics.Timer READ_TEXT_TIMER = fileTimer("readText");
 
-    
-    
     /******************************************************************
 	 * Constructor prepares lists and default screen for GUI.
 	 *****************************************************************/
@@ -65,9 +89,16 @@ import java.util.Scanner;
         // sets starting screen to CurrentRentalStatus
         display = ScreenDisplay.CurrentRentalStatus;
         listOfRentals = new ArrayList<>();
-        filteredListRentals = new ArrayList<>();
-        updateScreen();
+        columns = new RentalColumns();
+        renters = new RenterIndex();
+        views = new EnumMap<>(ScreenDisplay.class);
+        for (ScreenDisplay screen : ScreenDisplay.values())
+            views.put(screen, ScreenView.forDisplay(screen));
+
+        // screens are built once after the starting rentals are added
+        beginBulk();
         createList();
+        endBulk();
     }
 
     /******************************************************************
@@ -77,293 +108,116 @@ import java.util.Scanner;
 	 * @param selected screen to change to
 	 *****************************************************************/
     public void setDisplay(ScreenDisplay selected) {
+        ScreenDisplay previous = display;
         display = selected;
-        updateScreen();
+        refreshView();
+        filteredListRentals = views.get(display).getRows();
+
+        // the JTable only has to rebuild its columns if they are different
+        if (columnsOf(previous) != columnsOf(display))
+            fireTableStructureChanged();
+        else
+            fireTableDataChanged();
     }
 
     /******************************************************************
-	 * Filters, sorts, and modifies lists to match display set in
-     * setDisplay method, then pushes information to GUI class. 
-     * 
-     * @throws RuntimeException when display does not match any 
-     * expected cases
+	 * Rebuilds the sorted list of every screen from all rentals, then
+     * pushes information to GUI class. Used when the whole list of
+     * rentals has been replaced.
 	 *****************************************************************/
     private void updateScreen() {
-        switch (display) {
-            case CurrentRentalStatus:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // removes rentals that have been returned
-                    .filter(n -> n.actualDateReturned == null)
-                    // sets all rentals to proper capitalization
-                    .filter(n -> {
-                            n.setNameOfRenter(n.getNameOfRenter().substring(0, 1) + n.getNameOfRenter().substring(1).toLowerCase());
-                            return true;
-                    })
-                    .collect(Collectors.toList());
-                
-                // sorts rentals by name of renter
-                Collections.sort(filteredListRentals, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-                break;
-
-            case ReturnedItems:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // removes rentals that have been returned
-                    .filter(n -> n.actualDateReturned != null)
-                    // sets all rentals to proper capitalization
-                    .filter(n -> {                       
-                            n.setNameOfRenter(n.getNameOfRenter().substring(0, 1) + n.getNameOfRenter().substring(1).toLowerCase());
-                            return true;
-                    })
-                    .collect(Collectors.toList());
-
-                // sorts rentals by name of renter
-                Collections.sort(filteredListRentals, new Comparator<Rental>() {
-                    @Override
-                    public int compare(Rental n1, Rental n2) {
-                        return n1.nameOfRenter.compareTo(n2.nameOfRenter);
-                    }
-                });
-                break;
-
-            case DueWithInWeek:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // removes rentals that have been returned
-                    .filter(n -> n.actualDateReturned == null)
-                    // removes rentals that have more than 7 days between rented and due date
-                    .filter(n -> daysBetween(n.rentedOn , n.dueBack) <= 7)
-                    // sets all rentals to proper capitalization
-                    .filter(n -> {
-                            n.setNameOfRenter(n.getNameOfRenter().substring(0, 1) + n.getNameOfRenter().substring(1).toLowerCase());
-                            return true;
-                    })
-                    .collect(Collectors.toList());
-
-                // sorts rentals by name of renter
-                Collections.sort(filteredListRentals, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-                break;
-
-            case DueWithinWeekGamesFirst:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // removes rentals that have been returned
-                    .filter(n -> n.actualDateReturned == null)
-                    // removes rentals that have more than 7 days between rented and due date
-                    .filter(n -> daysBetween(n.rentedOn , n.dueBack) <= 7)
-                    // sets all rentals to proper capitalization
-                    .filter(n -> {
-                            n.setNameOfRenter(n.getNameOfRenter().substring(0, 1) + n.getNameOfRenter().substring(1).toLowerCase());
-                            return true;
-                    })
-                    .collect(Collectors.toList());
-                
-                // creates new arraylist of only games to be sorted seperatly 
-                ArrayList<Rental> tempGame = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Game)
-                    .collect(Collectors.toList());
-                // sorts rentals by name of renter
-                Collections.sort(tempGame, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-                
-                // creates new arraylist of only consoles to be sorted seperatly 
-                ArrayList<Rental> tempConsole = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Console)
-                    .collect(Collectors.toList());
-                // sorts rentals by name of renter
-                Collections.sort(tempConsole, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-
-                // combines lists in order of games -> consoles
-                tempGame.addAll(tempConsole);
-                filteredListRentals = tempGame;
-                break;
-
-            case Cap14DaysOverdue:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // removes rentals that have been returned
-                    .filter(n -> n.actualDateReturned == null)
-                    // removes rentals that have less than 8 days between rented and due date
-                    .filter(n -> daysBetween(n.rentedOn , n.dueBack) > 7)
-                    .collect(Collectors.toList());
-                
-                // creates new arraylist of only consoles to be capitalized and sorted seperatly 
-                ArrayList<Rental> tempCapitalConsole = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Console)
-                    // capitalizes names if more than 14 days overdue, removes otherwise
-                    .filter(n -> {
-                    if (daysBetween(n.rentedOn , n.dueBack) >= 14) {
-                        n.setNameOfRenter(n.getNameOfRenter().toUpperCase());
-                        return true;
-                    }
-                    return false;
-                    })
-                    .collect(Collectors.toList());
-                // sorts rentals by name of renter
-                Collections.sort(tempCapitalConsole, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-
-                // creates new arraylist of only consoles to be sorted seperatly
-                ArrayList<Rental> tempLowerConsole = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Console)
-                    // removes rentals that are more than 14 days overdue
-                    .filter(n -> {
-                        if (daysBetween(n.rentedOn , n.dueBack) >= 14) {
-                            return false;
-                        }   
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-                // sorts rentals by name of renter
-                Collections.sort(tempLowerConsole, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
- 
-                // creates new arraylist of only games to be capitalized and sorted seperatly
-                ArrayList<Rental> tempCapitalGame = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Game)
-                    // capitalizes names if more than 14 days overdue, removes otherwise
-                    .filter(n -> {
-                        if (daysBetween(n.rentedOn , n.dueBack) >= 14) {
-                            n.setNameOfRenter(n.getNameOfRenter().toUpperCase());
-                            return true;
-                        }
-                    return false;
-                    })
-                    .collect(Collectors.toList());
-                // sorts rentals by name of renter
-                Collections.sort(tempCapitalGame, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-
-                // creates new arraylist of only games to be sorted seperatly
-                ArrayList<Rental> tempLowerGame = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Game)
-                    // removes rentals that are more than 14 days overdue
-                    .filter(n -> {
-                        if (daysBetween(n.rentedOn , n.dueBack) >= 14) {
-                            return false;
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-                // sorts rentals by name of renter
-                Collections.sort(tempLowerGame, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-                
-                // combines capital lists in order of consoles -> games
-                tempCapitalConsole.addAll(tempCapitalGame);
-                ArrayList<Rental> tempCapitalList = tempCapitalConsole;
-
-                // combines non-capital lists in order of consoles -> games
-                tempLowerConsole.addAll(tempLowerGame);
-                ArrayList<Rental> tempLowerList = tempLowerConsole;
-
-                // combines lists in order of capital -> non-capital
-                tempCapitalList.addAll(tempLowerList);
-                filteredListRentals = tempCapitalList;
-                break;
-            
-            case EveryThingScreen:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // sets all rentals to proper capitalization
-                    .filter(n -> {
-                            n.setNameOfRenter(n.getNameOfRenter().substring(0, 1) + n.getNameOfRenter().substring(1).toLowerCase());
-                            return true;
-
-                    })
-                    .collect(Collectors.toList());
-
-                // sorts rentals by name of renter
-                Collections.sort(filteredListRentals, (n1, n2) -> n1.nameOfRenter.compareTo(n2.nameOfRenter));
-                break;
-
-            case LateRentalScreen:
-                filteredListRentals = (ArrayList<Rental>) listOfRentals.stream()
-                    // removes rentals that have been returned
-                    .filter(n -> n.actualDateReturned == null)
-                    // sets all rentals to proper capitalization
-                    .filter(n -> {
-                            n.setNameOfRenter(n.getNameOfRenter().substring(0, 1) + n.getNameOfRenter().substring(1).toLowerCase());
-                            return true;
-                    })
-                    // removes rentals that are not late
-                    .filter(n -> daysLate(n.dueBack) > 0)
-                    .collect(Collectors.toList());
-
-                // creates new arraylist of only games to be sorted seperatly
-                ArrayList<Rental> tempGameLate = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Game)
-                    .collect(Collectors.toList());
-                Collections.sort(tempGameLate, new Comparator<Rental>() {
-                    @Override
-                    public int compare(Rental n1, Rental n2) {
-                        // sorts rentals by how many days late they are
-                        int result = ((Integer)daysLate(n1.dueBack)).compareTo(daysLate(n2.dueBack));
-                        // if two rentals are equally late, they're sorted by name
-                        if (result == 0)
-                            result = n1.nameOfRenter.compareTo(n2.nameOfRenter);
-                        return result;
-                    }
-                });
-
-                // creates new arraylist of only consoles to be sorted seperatly
-                ArrayList<Rental> tempConsoleLate = (ArrayList<Rental>) filteredListRentals.stream()
-                    .filter(n -> n instanceof Console)
-                    .collect(Collectors.toList());
-                Collections.sort(tempConsoleLate, new Comparator<Rental>() {
-                    @Override
-                    public int compare(Rental n1, Rental n2) {  
-                        // sorts rentals by how many days late they are
-                        int result = ((Integer)daysLate(n1.dueBack)).compareTo(daysLate(n2.dueBack));
-                        // if two rentals are equally late, they're sorted by name
-                        if (result == 0)
-                            result = n1.nameOfRenter.compareTo(n2.nameOfRenter);
-                        return result;
-                    }
-                });
-
-                // combines lists in order of games -> consoles
-                tempGameLate.addAll(tempConsoleLate);
-                filteredListRentals = tempGameLate;
-                break;
+        long start = UPDATE_TIMERS.get(display).start();
+        FlightEvents.ScreenUpdate event = new FlightEvents.ScreenUpdate();
+        event.begin();
+        Object[] oldRows = filteredListRentals == null ? new Object[0]
+                : filteredListRentals.toArray();
+
+        for (int i = 0; i < listOfRentals.size(); i++)
+            listOfRentals.get(i).listIndex = i;
+
+        // the columns and the index are only out of step after a new list
+        if (columns == null || columns.size() != listOfRentals.size()) {
+            columns = RentalColumns.of(listOfRentals);
+            renters = RenterIndex.of(listOfRentals);
+        }
 
-            default:
-                throw new RuntimeException("upDate is in undefined state: " + display);
+        ViewBuilder.rebuildAll(views.values(), listOfRentals, columns);
+        filteredListRentals = views.get(display).getRows();
+        if (rowCache != null)
+            rowCache.clear();
+        UPDATE_TIMERS.get(display).stop(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.display = display.name();
+            event.rentals = listOfRentals.size();
+            event.rows = filteredListRentals.size();
+            event.commit();
         }
-        // pushes information to GUI
-        fireTableStructureChanged();
+        fireRowChanges(oldRows);
     }
-    
+
     /******************************************************************
-     * Compares two GregorianCalendar dates. 
-     * Order of parameters matter: if the first date is later than 
-     * the second date, a negative integer will be returned.
-     * 
-     * @param startDate Gregorian Calendar object representing the 
-     * earlier date to be compared
-     * @param endDate Gregorian Calendar object representing the later 
-     * date to be compared
-     * @return an int representing how many days are between both 
-     * dates 
-     *****************************************************************/
-    private int daysBetween(GregorianCalendar startDate, GregorianCalendar endDate) {
-		// Determine how many days the Game was rented out
-		GregorianCalendar gTemp = new GregorianCalendar();
-		gTemp = (GregorianCalendar) endDate.clone();
-		int daysBetween = 0;
-		while (gTemp.compareTo(startDate) > 0) {
-            // this subtracts one day from gTemp
-			gTemp.add(Calendar.DATE, -1);  
-			daysBetween++;
-		}
-		return daysBetween;
-	}
+	 * Rebuilds the current screen if it depends on today's date and
+     * the day has changed since it was built.
+     *
+     * @return true if the current screen was rebuilt
+	 *****************************************************************/
+    private boolean refreshView() {
+        ScreenView view = views.get(display);
+        if (view.isCurrent())
+            return false;
+        view.rebuild(listOfRentals, columns);
+        if (rowCache != null)
+            rowCache.clear();
+        return true;
+    }
 
     /******************************************************************
-     * Compares a GregorianCalendar date to the current date.
-     * The inputted date should be earlier than the current date in
-     * most cases; if the inputted date is later, a negative integer 
-     * will be returned.
-     * 
-     * @param pastDate Gregorian Calendar object representing date
-     * before current day to be compared
-     * @return an int representing how many days are between entered
-     * date and the current day
-     *****************************************************************/
-	private int daysLate(GregorianCalendar pastDate) {
-        // default GregorianCalendar is current day pulled from system information
-        GregorianCalendar currentDay = new GregorianCalendar();
-        return daysBetween(pastDate, currentDay); 
+	 * Tells the GUI which rows of the current screen changed, by
+     * comparing the rows it showed before with the rows it shows now.
+     * Rows are compared by identity; only the part between the
+     * unchanged start and unchanged end is reported.
+     *
+     * @param oldRows the rentals the screen showed before the change
+	 *****************************************************************/
+    private void fireRowChanges(Object[] oldRows) {
+        int oldSize = oldRows.length;
+        int newSize = filteredListRentals.size();
+
+        // skips the rows that are the same at the start and at the end
+        int start = 0;
+        while (start < oldSize && start < newSize
+                && oldRows[start] == filteredListRentals.get(start))
+            start++;
+        int end = 0;
+        while (end < oldSize - start && end < newSize - start
+                && oldRows[oldSize - 1 - end] == filteredListRentals.get(newSize - 1 - end))
+            end++;
+
+        int oldChanged = oldSize - start - end;
+        int newChanged = newSize - start - end;
+
+        if (oldChanged == 0 && newChanged == 0)
+            return;
+        if (oldChanged == newChanged)
+            fireTableRowsUpdated(start, start + newChanged - 1);
+        else if (oldChanged == 0)
+            fireTableRowsInserted(start, start + newChanged - 1);
+        else if (newChanged == 0)
+            fireTableRowsDeleted(start, start + oldChanged - 1);
+        else
+            fireTableDataChanged();
+    }
+
+    /******************************************************************
+	 * Returns the list of column names used by a screen. Screens that
+     * share columns return the same array.
+     *
+     * @param screen the screen to get the columns of
+     * @return the column names of that screen
+	 *****************************************************************/
+    private String[] columnsOf(ScreenDisplay screen) {
+        return ScreenColumns.namesOf(screen);
     }
 
     /******************************************************************
@@ -372,29 +226,10 @@ import java.util.Scanner;
      * 
      * @param col int representing the column to fetch the name of
      * @return a String of the column's name
-     * @throws RuntimeException when display does not match any 
-     * expected cases
      *****************************************************************/
        @Override
     public String getColumnName(int col) {
-        // returns specified index of arraylist of column names
-        switch (display) {
-            case CurrentRentalStatus:
-                return columnNamesCurrentRentals[col];
-            case ReturnedItems:
-                return columnNamesReturned[col];
-            case DueWithInWeek:
-                return columnNamesCurrentRentals[col];
-            case Cap14DaysOverdue:
-                return columnNamesCurrentRentals[col];
-            case DueWithinWeekGamesFirst:
-                return columnNamesCurrentRentals[col];
-            case EveryThingScreen:
-                return columnEverything[col];
-            case LateRentalScreen:
-                return columnLate[col];
-        }
-        throw new RuntimeException("Undefined state for Col Names: " + display);
+        return ScreenColumns.getColumnName(display, col);
     }
 
     /******************************************************************
@@ -402,29 +237,10 @@ import java.util.Scanner;
      * current display.
      * 
      * @return an int of the total columns needed
-     * @throws IllegalArgumentException when display does not match any 
-     * expected cases
      *****************************************************************/
     @Override
     public int getColumnCount() {
-        // returns number of items in arraylist of column names
-        switch (display) {
-            case CurrentRentalStatus:
-                return columnNamesCurrentRentals.length;
-            case ReturnedItems:
-                return columnNamesReturned.length;
-            case DueWithInWeek:
-                return columnNamesCurrentRentals.length;
-            case Cap14DaysOverdue:
-                return columnNamesCurrentRentals.length;
-            case DueWithinWeekGamesFirst:
-                return columnNamesCurrentRentals.length;
-            case EveryThingScreen:
-                return columnEverything.length;
-            case LateRentalScreen:
-                return columnLate.length;
-        }
-        throw new IllegalArgumentException();
+        return ScreenColumns.getColumnCount(display);
     }
 
     /******************************************************************
@@ -444,291 +260,124 @@ import java.util.Scanner;
      * @param row integer for desired row in GUI
      * @param col integer for desired column in GUI
      * @return relevant object to be displayed
-     * @throws IllegalArgumentException when display does not match any 
-     * expected cases
+     * @throws RuntimeException if the column is out of range
      *****************************************************************/
     @Override
     public Object getValueAt(int row, int col) {
-        switch (display) {
-            case CurrentRentalStatus:
-                return currentRentScreen(row, col);
-            case ReturnedItems:
-                return rentedOutScreen(row, col);
-            case DueWithInWeek:
-                return currentRentScreen(row, col);
-            case Cap14DaysOverdue:
-                return currentRentScreen(row, col);
-            case DueWithinWeekGamesFirst:
-                return currentRentScreen(row, col);
-            case EveryThingScreen:
-                return EverythingScreen(row, col);
-            case LateRentalScreen:
-                return LateRentalScreen(row,col);
-        }
-        throw new IllegalArgumentException();
+        long start = CELL_TIMER.startSampled();
+        Object value = rowCache().get(display, views.get(display),
+                filteredListRentals, row, col);
+        CELL_TIMER.stopSampled(start);
+        return value;
     }
 
     /******************************************************************
-     * Retrieves information to be displayed at specified location on
-     * Current Rental Screen, Within 7 Days Screen, Within 7 Days 
-     * Games First Screen and 14 Days Late Screen.
-     * 
-     * @param row integer for desired row in GUI
-     * @param col integer for desired column in GUI
-     * @return relevant object to be displayed
-     * @throws RuntimeException row or column is out of range
+     * Works out the cell values of the rows around the part of the
+     * table that can be seen, a page above and a page below, so that
+     * they are ready when the user scrolls to them.
+     *
+     * @param first the first visible row
+     * @param last the last visible row
      *****************************************************************/
-    private Object currentRentScreen(int row, int col) {
-        switch (col) {
-            case 0:
-                // this returns the name of the renter
-                return (filteredListRentals.get(row).nameOfRenter);
-
-            case 1:
-                // this returns estimated cost of rental
-                return (filteredListRentals.get(row).getCost(filteredListRentals.
-                        get(row).dueBack));
-
-            case 2:
-                // this returns the date the item was rented on
-                return (formatter.format(filteredListRentals.get(row).rentedOn.getTime()));
-
-            case 3:
-                // checks if item has been returned
-                if (filteredListRentals.get(row).dueBack == null)
-                    return "-";
-
-                // this returns the date the item is due
-                return (formatter.format(filteredListRentals.get(row).dueBack.getTime()));
-
-            case 4:
-                // checks if item is a game or console
-                if (filteredListRentals.get(row) instanceof Console)
-                    // this returns the name of the console
-                    return (((Console) filteredListRentals.get(row)).getConsoleType());
-                else {
-                    // checks if item is a game or console
-                    if (filteredListRentals.get(row) instanceof Game)
-                        // checks if console was rented along with game
-                        if (((Game) filteredListRentals.get(row)).getConsole() != null)
-                            // this returns the name of the console if above is true
-                            return ((Game) filteredListRentals.get(row)).getConsole();
-                        else
-                            return "";
-                }
-
-            case 5:
-                // checks if item is a game
-                if (filteredListRentals.get(row) instanceof Game)
-                    // this returns the name of the game
-                    return (((Game) filteredListRentals.get(row)).getNameGame());
-                else
-                    return "";
-            
-            default:
-                throw new RuntimeException("Row,col out of range: " + row + " " + col);
-        }
+    public void prefetchRows(int first, int last) {
+        int page = last - first + 1;
+        if (page <= 0)
+            return;
+        rowCache().prefetch(display, views.get(display), filteredListRentals,
+                first - page, last + page);
     }
 
-     /******************************************************************
-     * Retrieves information to be displayed at specified location on
-     * Late Rental Screen.
-     * 
-     * @param row integer for desired row in GUI
-     * @param col integer for desired column in GUI
-     * @return relevant object to be displayed
-     * @throws RuntimeException row or column is out of range
+    /******************************************************************
+     * Forgets the cached cell values whenever the GUI is told that the
+     * table changed, since rows may have moved or changed.
+     *
+     * @param e the change to the table
      *****************************************************************/
-    private Object LateRentalScreen(int row, int col){
-        switch (col) {
-            case 0:
-                // this returns the name of the renter
-                return (filteredListRentals.get(row).nameOfRenter);
-
-            case 1:
-                // this returns estimated cost of rental
-                return (filteredListRentals.get(row).getCost(filteredListRentals.
-                        get(row).dueBack));
-
-            case 2:
-                // this returns the date the item was rented on
-                return (formatter.format(filteredListRentals.get(row).rentedOn.getTime()));
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        if (rowCache != null)
+            rowCache.clear();
+        super.fireTableChanged(e);
+    }
 
-            case 3:
-                // checks if item has been returned
-                if (filteredListRentals.get(row).dueBack == null)
-                    return "-";
-                // this returns the date the item is due
-                return (formatter.format(filteredListRentals.get(row).dueBack.getTime()));
-
-            case 4:
-                // checks if item has been returned
-                if (filteredListRentals.get(row).dueBack == null)
-                    return "-";
-                // this returns the amount of days past due the item has been rented
-                return daysLate(filteredListRentals.get(row).dueBack);
-                
-            case 5:
-                // checks if item is a game or console
-                if (filteredListRentals.get(row) instanceof Console)
-                    // this returns the name of the console
-                    return (((Console) filteredListRentals.get(row)).getConsoleType());
-                else {
-                    // checks if item is a game or console
-                    if (filteredListRentals.get(row) instanceof Game)
-                        // checks if console was rented along with game
-                        if (((Game) filteredListRentals.get(row)).getConsole() != null)
-                            // this returns the name of the console if above is true
-                            return ((Game) filteredListRentals.get(row)).getConsole();
-                    else
-                        return "";
-                }   
-
-            case 6:
-                // checks if item is a game
-                if (filteredListRentals.get(row) instanceof Game)
-                    // this returns the name of the game
-                    return (((Game) filteredListRentals.get(row)).getNameGame());
-                else
-                    return "";
-                      
-            default:
-                throw new RuntimeException("Row,col out of range: " + row + " " + col);
-        }
+    /** the cache of cell values, made when first needed */
+    private RowCache rowCache() {
+        if (rowCache == null)
+            rowCache = new RowCache();
+        return rowCache;
     }
 
-     /******************************************************************
-     * Retrieves information to be displayed at specified location on
-     * Everything Screen.
+    /****************************************************************
+     * A method to add one Rental object to the overall list of
+     * objects.
      * 
-     * @param row integer for desired row in GUI
-     * @param col integer for desired column in GUI
-     * @return relevant object to be displayed
-     * @throws RuntimeException row or column is out of range
-     *****************************************************************/
-    private Object EverythingScreen(int row, int col) {
-        switch (col) {
-            case 0: 
-                // this returns the name of the renter
-                return (filteredListRentals.get(row).nameOfRenter);
-            
-            case 1: 
-                // this returns the date the item was rented on
-                return (formatter.format(filteredListRentals.get(row).rentedOn.getTime()));
-            
-            case 2: 
-                // checks if item has been returned 
-                if (filteredListRentals.get(row).dueBack == null)
-                    return "-";
-                // this returns the date the item is due
-                return (formatter.format(filteredListRentals.get(row).dueBack.getTime()));          
-
-            case 3: 
-                // this returns "Not Returned" if item has not been returned
-                if (filteredListRentals.get(row).getActualDateReturned() == null)
-                    return "Not Returned";
-                // this returns the date the item was returned
-                return (formatter.format(filteredListRentals.get(row).actualDateReturned.getTime()));
-
-            case 4: 
-                // this returns estimated cost of rental
-                if(filteredListRentals.get(row).getCost(filteredListRentals.
-                    get(row).dueBack) == 0)
-                        return "Not Returned";
-                return (filteredListRentals.get(row).getCost(filteredListRentals.
-                    get(row).dueBack)); 
-
-            case 5: 
-                // this returns actual cost of rental
-                if (filteredListRentals.get(row).getActualDateReturned() == null)
-                        return "Not Returned";
-                return (filteredListRentals.get(row).getCost(filteredListRentals.
-                    get(row).dueBack)); 
-
-            case 6: 
-                // checks if item is a game or console
-                if (filteredListRentals.get(row) instanceof Console)
-                    // this returns the name of the console
-                    return (((Console) filteredListRentals.get(row)).getConsoleType());
-                else {
-                    // checks if item is a game or console
-                    if (filteredListRentals.get(row) instanceof Game)
-                        // checks if console was rented along with game
-                        if (((Game) filteredListRentals.get(row)).getConsole() != null)
-                            // this returns the name of the console if above is true
-                            return ((Game) filteredListRentals.get(row)).getConsole();
-                        else
-                            return "";
-                }
-    
-            case 7: 
-                // checks if item is a game
-                if (filteredListRentals.get(row) instanceof Game)
-                    // this returns the name of the game
-                    return (((Game) filteredListRentals.get(row)).getNameGame());
-                else
-                    return "";
-            
-            default:
-                throw new RuntimeException("Row,col out of range: " + row + " " + col);
+     * @param a Rental object to add to list
+     ****************************************************************/
+    public void add(Rental a) {
+        a.listIndex = listOfRentals.size();
+        listOfRentals.add(a);
+        columns.add(a);
+        renters.add(a);
+        if (journal != null)
+            journal.appendAdd(a);
+
+        // screens are rebuilt all at once when the bulk session ends
+        if (bulkDepth > 0)
+            return;
+
+        int row = -1;
+        for (ScreenDisplay screen : views.keySet()) {
+            int added = views.get(screen).insert(a);
+            if (screen == display)
+                row = added;
         }
+
+        // pushes only the new row to the GUI
+        if (refreshView())
+            fireTableDataChanged();
+        else if (row != -1)
+            fireTableRowsInserted(row, row);
     }
 
-     /******************************************************************
-     * Retrieves information to be displayed at specified location on
-     * Returned Screen.
+    /****************************************************************
+     * A method to add many Rental objects to the overall list at
+     * once. The screens are rebuilt a single time after all of the
+     * rentals are added, instead of once per rental.
      * 
-     * @param row integer for desired row in GUI
-     * @param col integer for desired column in GUI
-     * @return relevant object to be displayed
-     * @throws RuntimeException row or column is out of range
-     *****************************************************************/
-    private Object rentedOutScreen(int row, int col) {
-        switch (col) {
-            case 0:
-                // this returns the name of the renter
-                return (filteredListRentals.get(row).nameOfRenter);
-
-            case 1:
-                // this returns the date the item was rented on
-                return (formatter.format(filteredListRentals.get(row).rentedOn.
-                    getTime()));
-
-            case 2:
-                // this returns the date the item is due
-                return (formatter.format(filteredListRentals.get(row).dueBack.
-                    getTime()));
-
-            case 3:
-                // this returns the date the item was returned
-                return (formatter.format(filteredListRentals.get(row).
-                    actualDateReturned.getTime()));
-
-            case 4:
-                // this returns estimated cost of rental
-                return (filteredListRentals.
-                    get(row).getCost(filteredListRentals.get(row).dueBack));
-
-            case 5:
-                // this returns actual cost of rental
-                return (filteredListRentals.
-                    get(row).getCost(filteredListRentals.get(row).
-                    actualDateReturned));
-
-            default:
-                throw new RuntimeException("Row,col out of range: " + row + " " + col);
+     * @param rentals the Rental objects to add to list
+     ****************************************************************/
+    public void addAll(Collection<? extends Rental> rentals) {
+        beginBulk();
+        try {
+            for (Rental unit : rentals)
+                add(unit);
+        } finally {
+            endBulk();
         }
     }
 
     /****************************************************************
-     * A method to add one Rental object to the overall list of
-     * objects.
+     * Starts a bulk session. Until the matching endBulk call, add and
+     * update only change the overall list and the GUI is not told
+     * about any change. Sessions may be nested.
+     ****************************************************************/
+    public void beginBulk() {
+        bulkDepth++;
+    }
+
+    /****************************************************************
+     * Ends a bulk session. When the last open session ends every
+     * screen is rebuilt once and the GUI is told about it.
      * 
-     * @param a Rental object to add to list
+     * @throws IllegalStateException if no bulk session is open
      ****************************************************************/
-    public void add(Rental a) {
-        listOfRentals.add(a);
-        updateScreen();
+    public void endBulk() {
+        if (bulkDepth == 0)
+            throw new IllegalStateException("No bulk session is open");
+
+        bulkDepth--;
+        if (bulkDepth == 0)
+            updateScreen();
     }
 
     /****************************************************************
@@ -744,52 +393,185 @@ import java.util.Scanner;
     }
 
     /******************************************************************
-     * A method to upadate the current screen by calling the main
-     * updateScreen method
+     * A method to update the screens after a rental has changed, such
+     * as when it is returned. The rental is moved to the screens it
+     * now belongs on.
      * 
      * @param index where to start on the list
      * @param unit  the unit desired to show when updating the screen
      *****************************************************************/
     public void update(int index, Rental unit) {
-        updateScreen();
+        if (unit.isReturned())
+            columns.setReturned(unit.listIndex, unit.returnedDay);
+        if (journal != null && unit.isReturned())
+            journal.appendReturn(unit.listIndex, unit.returnedDay);
+
+        // screens are rebuilt all at once when the bulk session ends
+        if (bulkDepth > 0)
+            return;
+
+        int oldRow = -1;
+        int newRow = -1;
+        for (ScreenDisplay screen : views.keySet()) {
+            ScreenView view = views.get(screen);
+            int removed = view.remove(unit);
+            int added = view.insert(unit);
+            if (screen == display) {
+                oldRow = removed;
+                newRow = added;
+            }
+        }
+
+        // pushes only the rows that moved to the GUI
+        if (refreshView())
+            fireTableDataChanged();
+        else if (oldRow == -1 && newRow != -1)
+            fireTableRowsInserted(newRow, newRow);
+        else if (oldRow != -1 && newRow == -1)
+            fireTableRowsDeleted(oldRow, oldRow);
+        else if (oldRow != -1)
+            fireTableRowsUpdated(Math.min(oldRow, newRow), Math.max(oldRow, newRow));
+    }
+
+    /******************************************************************
+     * Changes the name of the renter of a rental that is in the list,
+     * keeping the screens, the renter index and the journal up to
+     * date.
+     * 
+     * @param unit the rental to rename
+     * @param name the new name of the renter
+     *****************************************************************/
+    public void renameRenter(Rental unit, String name) {
+        // every screen is sorted by name, so the rental leaves them first
+        int oldRow = -1;
+        if (bulkDepth == 0) {
+            for (ScreenDisplay screen : views.keySet()) {
+                int removed = views.get(screen).remove(unit);
+                if (screen == display)
+                    oldRow = removed;
+            }
+        }
+
+        String oldName = unit.getNameOfRenter();
+        unit.setNameOfRenter(name);
+        renters.renamed(unit, oldName);
+        columns.setRenter(unit.listIndex, unit.getNameOfRenter());
+        if (journal != null)
+            journal.appendRename(unit.listIndex, unit.getNameOfRenter());
+
+        // screens are rebuilt all at once when the bulk session ends
+        if (bulkDepth > 0)
+            return;
+
+        int newRow = -1;
+        for (ScreenDisplay screen : views.keySet()) {
+            int added = views.get(screen).insert(unit);
+            if (screen == display)
+                newRow = added;
+        }
+
+        // pushes only the rows that moved to the GUI
+        if (refreshView())
+            fireTableDataChanged();
+        else if (oldRow != -1 && newRow != -1)
+            fireTableRowsUpdated(Math.min(oldRow, newRow), Math.max(oldRow, newRow));
+        else if (oldRow != -1)
+            fireTableRowsDeleted(oldRow, oldRow);
+        else if (newRow != -1)
+            fireTableRowsInserted(newRow, newRow);
+    }
+
+    /******************************************************************
+     * Finds every rental of a renter, without regard to case.
+     * 
+     * @param name the name of the renter
+     * @return the rentals of that renter in the order they were added;
+     * the list must not be changed
+     *****************************************************************/
+    public List<Rental> findRentals(String name) {
+        return renters.find(name);
+    }
+
+    /******************************************************************
+     * Finds every rental of the renters whose name starts with a
+     * prefix, without regard to case.
+     * 
+     * @param prefix the start of the name of the renter
+     * @return the rentals, grouped by renter in name order
+     *****************************************************************/
+    public List<Rental> findRentalsByPrefix(String prefix) {
+        return renters.findByPrefix(prefix);
+    }
+
+    /******************************************************************
+     * Finds the rentals not returned yet that are due back from today
+     * through the next few days.
+     * 
+     * @param days how many days after today to include
+     * @return the rentals, in the order they were added
+     *****************************************************************/
+    public List<Rental> findDueWithin(int days) {
+        return rentalsAt(columns.getDueIndex().dueWithin(days, System.currentTimeMillis()));
+    }
+
+    /******************************************************************
+     * Finds the rentals not returned yet that are at least some days
+     * late, as shown on the Late Rental Screen.
+     * 
+     * @param days the fewest days late to include
+     * @return the rentals, in the order they were added
+     *****************************************************************/
+    public List<Rental> findLateBy(int days) {
+        return rentalsAt(columns.getDueIndex().lateBy(days, System.currentTimeMillis()));
+    }
+
+    private List<Rental> rentalsAt(int[] rows) {
+        ArrayList<Rental> rentals = new ArrayList<>(rows.length);
+        for (int row : rows)
+            rentals.add(listOfRentals.get(row));
+        return rentals;
     }
 
     /******************************************************************
      * A method to save a list of all rentals in the 
-     * format of a database
+     * format of a database, see RentalSnapshot. Changes made after
+     * the save are kept in a journal next to the file, so saving to
+     * the same file again only has to make the journal durable.
      * 
      * @param filename the name of the file to save by
      * @throws RuntimeException for various errors saving file
      *****************************************************************/
     public void saveDatabase(String filename) {
         try {
-            FileOutputStream fos = new FileOutputStream(filename);
-            ObjectOutputStream os = new ObjectOutputStream(fos);
-            System.out.println(listOfRentals.toString());
-            os.writeObject(listOfRentals);
-            os.close();
+            // the file and its journal already hold every change
+            RentalJournal current = getJournal(filename);
+            if (canSync(current, filename)) {
+                current.sync();
+                return;
+            }
+            attachJournal(writeDatabase(listOfRentals, filename, current,
+                    ProgressListener.NONE), filename);
         } catch (IOException ex) {
+            // the old journal is closed once the file has been replaced
+            if (journal != null && journal.isClosed())
+                attachJournal(null, null);
             throw new RuntimeException("Saving problem! " + display);
         }
     }
 
     /******************************************************************
-     * A method to load a list of rentals from a file
+     * A method to load a list of rentals from a file, then replay the
+     * changes recorded in its journal since it was saved. Files saved
+     * with Java serialization by older versions are still read.
      * 
-     * @param the desired filename
+     * @param filename the desired filename
      * @throws RuntimeException for various errors loading file
      *****************************************************************/
     public void loadDatabase(String filename) {
-        listOfRentals.clear();
-        
         try {
-            FileInputStream fis = new FileInputStream(filename);
-            ObjectInputStream is = new ObjectInputStream(fis);
-
-            
-            listOfRentals = (ArrayList<Rental>) is.readObject();
-            updateScreen();
-            is.close();
+            ArrayList<Rental> loaded = readDatabase(filename, ProgressListener.NONE);
+            replaceRentals(loaded, RentalJournal.resume(journalFile(filename), loaded),
+                    filename);
         } catch (Exception ex) {
             throw new RuntimeException("Loading problem: " + display);
         }
@@ -802,47 +584,7 @@ import java.util.Scanner;
      * @return true if process was successful
      *****************************************************************/
     public boolean saveAsText(String filename) {
-        // if filename is empty thow error
-        if (filename.equals("")) {
-            throw new IllegalArgumentException();
-        }
-        
-        // start writing on text file
-        try {
-            PrintWriter out = new PrintWriter(new BufferedWriter(
-                    new FileWriter(filename)));
-            out.println(listOfRentals.size());
-            for (int i = 0; i < listOfRentals.size(); i++) {
-                Rental unit = listOfRentals.get(i);
-                out.println(unit.getClass().getName());
-                out.println("Name is " + unit.getNameOfRenter());
-                out.println("Rented on " + formatter.format(unit.rentedOn.getTime()));
-                out.println("DueDate " + formatter.format(unit.dueBack.getTime()));
-
-                if (unit.getActualDateReturned() == null) {
-                    out.println("Not returned!");
-                }
-                else {
-                    out.println(formatter.format(unit.actualDateReturned.getTime()));
-                }
-                if (unit instanceof Game) {
-                    out.println(((Game) unit).getNameGame());
-                    if (((Game) unit).getConsole() != null)
-                        out.println(((Game) unit).getConsole());
-                    else
-                        out.println("No Console");
-                }
-
-                if (unit instanceof Console) {
-                    out.println(((Console) unit).getConsoleType());
-                }
-            }
-            out.close();
-            return true;
-
-        } catch (IOException ex) {
-            return false;
-        }
+        return writeText(listOfRentals, filename, ProgressListener.NONE);
     }
 
     /******************************************************************
@@ -854,206 +596,263 @@ import java.util.Scanner;
      * @throws RuntimeException for various errors in creation
      *****************************************************************/
     public void loadFromText(String filename) {
-        listOfRentals.clear();
-        // local variables to keep track of number of games and
-        // consoles scanned
-        int games = 0;
-        int consoles = 0;
-        
-        // make sure filename is correct
-        if (filename == null) {
-			throw new IllegalArgumentException("Null filename");
+        // text files are not journaled
+        replaceRentals(readText(filename, ProgressListener.NONE), null, null);
+    }
+
+    /******************************************************************
+     * Returns a copy of the list of all rentals that stays the same
+     * while the rentals are saved on another thread.
+     * 
+     * @return a new list holding every rental
+     *****************************************************************/
+    public ArrayList<Rental> getRentalsSnapshot() {
+        return new ArrayList<>(listOfRentals);
+    }
+
+    /******************************************************************
+     * Returns the number of rentals in the store, on every screen.
+     * 
+     * @return the number of rentals
+     *****************************************************************/
+    public int getRentalCount() {
+        return listOfRentals.size();
+    }
+
+    /******************************************************************
+     * Swaps in a whole new list of rentals, such as one loaded from a
+     * file, and rebuilds every screen.
+     * 
+     * @param rentals the new list of all rentals
+     * @param newJournal the journal of the file they came from, or null
+     * @param database the file the journal belongs to, or null
+     *****************************************************************/
+    void replaceRentals(ArrayList<Rental> rentals, RentalJournal newJournal, String database) {
+        attachJournal(newJournal, database);
+        listOfRentals = rentals;
+        columns = null;
+        updateScreen();
+    }
+
+    /******************************************************************
+     * Starts recording changes in a new journal, closing the old one.
+     * 
+     * @param newJournal the journal to record changes in, or null
+     * @param database the file the journal belongs to, or null
+     *****************************************************************/
+    void attachJournal(RentalJournal newJournal, String database) {
+        if (newJournal != journal)
+            closeJournal();
+        journal = newJournal;
+        journalDatabase = database;
+    }
+
+    /******************************************************************
+     * Returns the journal if it belongs to the file given.
+     * 
+     * @param filename the database file
+     * @return the open journal of that file, or null
+     *****************************************************************/
+    RentalJournal getJournal(String filename) {
+        if (journal != null && filename.equals(journalDatabase))
+            return journal;
+        return null;
+    }
+
+    /******************************************************************
+     * Writes any changes still waiting in the journal to disk and
+     * stops journaling. Called before the program exits and when the
+     * rentals are replaced by a file that has no journal.
+     *****************************************************************/
+    public void closeJournal() {
+        if (journal == null)
+            return;
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            throw new RuntimeException("Saving problem! " + journalDatabase);
+        } finally {
+            journal = null;
+            journalDatabase = null;
         }
+    }
+
+    private static Metrics.Timer fileTimer(String operation) {
+        return Metrics.timer("file_seconds", "Time to read or write a whole file",
+                "operation", operation);
+    }
 
-        // start scanning file
-        try
-        {
-            // Scanner object to scan text file
-                Scanner inFS = new Scanner(new File(filename));
-            // Date formatter object used to create gregorial calendar dates
-                SimpleDateFormat df = new SimpleDateFormat("MM/dd/yyyy");
-
-           // while there is a line to scann, loop through text
-           while(inFS.hasNext())
-           {
-            // local string to read number of rentals
-            String lineOfText = inFS.nextLine();
-            // if the line scanned is a game then assume next lines are 
-            // the attributes of a game object
-            if (lineOfText.contains(".Game")) { 
-                // increase number of games scanned
-                games++;
-
-                try
-                {
-                    // First line read after class line is the name
-                    String Name = inFS.nextLine();
-                    // Discard "Name is String"
-                    Name = Name.substring(8);
-
-                    // Read the date as string first
-                    String d1 = inFS.nextLine();
-                    // create a new date object and parse it from string scanned before
-                    Date date1 = df.parse(d1.substring(10));
-                    // create a greg. calendar object and assign its date
-                    GregorianCalendar rentDate = new GregorianCalendar();
-                    // assign rent date value
-                    rentDate.setTime(date1);
-
-                    // Read the date as string first
-                    String d2 = inFS.nextLine();
-                    // create a new date object and parse it from string scanned before
-                    Date date2 = df.parse(d2.substring(8));
-                    // create a greg. calendar object and assign its date
-                    GregorianCalendar dueDate = new GregorianCalendar();
-                    // assign rent date value
-                    dueDate.setTime(date2);
-
-                    // Read the return date as string first
-                    String d3 = inFS.nextLine();
-                    // create a date object and initialize it to a starting value
-                    Date date3 = df.parse("00/00/0000");
-                    // if the rental has not been returned yet
-                    if(!d3.equals("Not returned!")) 
-                        date3 = df.parse(d3);
-                    // create a greg. calendar object and assign its date
-                    GregorianCalendar returnedDate = new GregorianCalendar();
-                    // assign rent date value
-                    returnedDate.setTime(date3);
-
-                    // Scan and assign title value from string
-                    String title = inFS.nextLine();
-
-                    // read console type
-                    String consoleType = inFS.nextLine();
-                    // Consoletype initially set to null before assigning values
-                    ConsoleTypes myConsole = null;
-                    
-                    // Assign consoletype to myConsole depending on the string scanned
-                    switch(consoleType){
-                        case "NoSelection":
-                            myConsole = ConsoleTypes.NoSelection;
-                            break;
-                        case "PlayStation4": 
-                            myConsole = ConsoleTypes.PlayStation4;
-                            break;
-                        case "XBoxOneS": 
-                            myConsole = ConsoleTypes.XBoxOneS;
-                            break;
-                        case "PlayStation4Pro": 
-                            myConsole = ConsoleTypes.PlayStation4Pro;
-                            break;
-                        case "NintendoSwich": 
-                            myConsole = ConsoleTypes.NintendoSwich;
-                            break;
-                        case "SegaGenesisMini": 
-                            myConsole = ConsoleTypes.SegaGenesisMini;
-                            break;
-                    }
-
-                    // If there is no date returned parameter should be null
-                    Game game1 =  new Game(Name, rentDate, dueDate, null, title, myConsole);
-                    
-                    // If rental is returned then assign valid returnedDate
-                    if(!d3.equals("Not returned!")) 
-                        game1 = new Game(Name, rentDate, dueDate, returnedDate, title, myConsole);
-                    
-                    // add element to list of rentals
-                    listOfRentals.add(game1);
-                    
-                }catch(ParseException e) {
-                    throw new RuntimeException("Error in testing, creation of list");
-                }     
+    /******************************************************************
+     * Returns the journal file kept next to a database file.
+     * 
+     * @param filename the database file
+     * @return the journal file of that database
+     *****************************************************************/
+    static File journalFile(String filename) {
+        return RentalJournal.fileFor(filename);
+    }
+
+    /******************************************************************
+     * Writes rentals to a database file and starts an empty journal
+     * for it. A new file is written first and then moved over the old
+     * one, so a crash or cancel never leaves half a database. Does not
+     * touch any ListModel, so it can run on another thread.
+     * 
+     * @param rentals the rentals to save, must not change meanwhile
+     * @param filename the name of the file to save by
+     * @param oldJournal the open journal of the file, closed once the
+     * file has been replaced and before the new journal is started,
+     * or null if none is open
+     * @param progress told how many rentals have been written
+     * @return the new, empty journal of the file
+     * @throws IOException for various errors saving file
+     *****************************************************************/
+    static RentalJournal writeDatabase(List<Rental> rentals, String filename,
+                                       RentalJournal oldJournal,
+                                       ProgressListener progress) throws IOException {
+        long start = WRITE_DATABASE_TIMER.start();
+        FlightEvents.FileOperation event = FlightEvents.FileOperation.start("writeDatabase",
+                filename);
+        int records = -1;
+        try {
+            File temp = new File(filename + ".tmp");
+            try (OutputStream os = new BufferedOutputStream(
+                    new FileOutputStream(temp), 1 << 16)) {
+                RentalSnapshot.write(ProgressListener.track(rentals.iterator(),
+                        rentals.size(), progress), os);
+            } catch (IOException | RuntimeException ex) {
+                temp.delete();
+                throw ex;
             }
-            
-            if (lineOfText.contains(".Console")){
-                consoles++;
-                try
-                {
-                    // First line read after class line is the name
-                    String Name = inFS.nextLine();
-                    // Discard "Name is String"
-                    Name = Name.substring(8);
-
-                    // Read the date as string first
-                    String d1 = inFS.nextLine();
-                    // create a new date object and parse it from string scanned before
-                    Date date1 = df.parse(d1.substring(10));
-                    // create a greg. calendar object and assign its date
-                    GregorianCalendar rentDate = new GregorianCalendar();
-                    // assign rent date value
-                    rentDate.setTime(date1);
-
-                    // Read the date as string first
-                    String d2 = inFS.nextLine();
-                    // create a date object and initialize it to a starting value
-                    Date date2 = df.parse(d2.substring(8));
-                    // create a greg. calendar object and assign its date
-                    GregorianCalendar dueDate = new GregorianCalendar();
-                    // assign rent date value
-                    dueDate.setTime(date2);
-
-                     // Read the return date as string first
-                    String d3 = inFS.nextLine();
-                    // create a date object and initialize it to a starting value
-                    Date date3 = df.parse("00/00/0000");
-                    // if the rental has not been returned yet
-                    if(!d3.equals("Not returned!"))
-                        date3 = df.parse(d3);
-                    // create a greg. calendar object and assign its date
-                    GregorianCalendar returnedDate = new GregorianCalendar();
-                    // assign return date value
-                    returnedDate.setTime(date3);
-
-                    // read console type
-                    String consoleType = inFS.nextLine();
-                    // Consoletype initially set to null before assigning values
-                    ConsoleTypes myConsole = null;
-                     
-                    // Assign consoletype to myConsole depending on the string scanned
-                    switch(consoleType){
-                        case "NoSelection": 
-                            myConsole = ConsoleTypes.NoSelection;
-                            break;
-                        case "PlayStation4": 
-                            myConsole = ConsoleTypes.PlayStation4;
-                            break;
-                        case "XBoxOneS": 
-                            myConsole = ConsoleTypes.XBoxOneS;
-                            break;
-                        case "PlayStation4Pro": 
-                            myConsole = ConsoleTypes.PlayStation4Pro;
-                            break;
-                        case "NintendoSwich": 
-                            myConsole = ConsoleTypes.NintendoSwich;
-                            break;
-                        case "SegaGenesisMini": 
-                            myConsole = ConsoleTypes.SegaGenesisMini;
-                            break;
-                    }
-                    // If there is no date returned parameter should be null
-                    Console console1 = new Console(Name, rentDate, dueDate, null, myConsole);
-                    // If rental is returned then assign valid returnedDate
-                    if(!d3.equals("Not returned!"))
-                        console1 = new Console(Name, rentDate, dueDate, returnedDate, myConsole);
-                    // add element to list of rentals
-                    listOfRentals.add(console1);
-
-                }catch(ParseException e) {
-                    throw new RuntimeException("Error in testing, creation of list");
-                }
+            Files.move(temp.toPath(), new File(filename).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = rentals.size();
+
+            // the old journal still writes to the file the new one truncates
+            if (oldJournal != null)
+                oldJournal.close();
+            return RentalJournal.create(journalFile(filename), rentals.size());
+        } finally {
+            WRITE_DATABASE_TIMER.stop(start);
+            event.done(records);
+        }
+    }
+
+    /******************************************************************
+     * Tells if saving to a file only has to make its journal durable.
+     * The file is written again once the journal has grown large, or
+     * if it was saved with Java serialization by an older version, so
+     * that it is read in snapshot format from then on.
+     * 
+     * @param current the open journal of the file, null if none
+     * @param filename the file being saved
+     * @return true if syncing the journal is enough
+     *****************************************************************/
+    static boolean canSync(RentalJournal current, String filename) {
+        return current != null && !current.needsCompaction()
+                && RentalSnapshot.isSnapshot(filename);
+    }
+
+    /******************************************************************
+     * Reads the rentals saved in a database file, without replaying
+     * its journal. Does not touch any ListModel, so it can run on
+     * another thread.
+     * 
+     * @param filename the desired filename
+     * @param progress told how many bytes have been read
+     * @return the rentals in the file
+     * @throws IOException for various errors loading file
+     * @throws ClassNotFoundException if an old serialized file holds
+     * an unknown class
+     *****************************************************************/
+    static ArrayList<Rental> readDatabase(String filename, ProgressListener progress)
+            throws IOException, ClassNotFoundException {
+        long start = READ_DATABASE_TIMER.start();
+        FlightEvents.FileOperation event = FlightEvents.FileOperation.start("readDatabase",
+                filename);
+        int records = -1;
+        try {
+            ArrayList<Rental> loaded = RentalSnapshot.readFile(filename, progress);
+            records = loaded.size();
+            return loaded;
+        } finally {
+            READ_DATABASE_TIMER.stop(start);
+            event.done(records);
+        }
+    }
+
+    /******************************************************************
+     * Writes rentals to a text file, streaming them through a
+     * TextExporter. Does not touch any ListModel, so it can run on
+     * another thread.
+     * 
+     * @param rentals the rentals to save, must not change meanwhile
+     * @param filename the desired file name when saving the list
+     * @param progress told how many rentals have been written
+     * @return true if process was successful
+     *****************************************************************/
+    static boolean writeText(List<Rental> rentals, String filename,
+                             ProgressListener progress) {
+        long start = WRITE_TEXT_TIMER.start();
+        FlightEvents.FileOperation event = FlightEvents.FileOperation.start("writeText",
+                filename);
+        int records = -1;
+        try {
+            // if filename is empty thow error
+            if (filename.equals("")) {
+                throw new IllegalArgumentException();
             }
+
+            // start writing on text file
+            try {
+                TextExporter.write(rentals, new File(filename).toPath(), progress);
+                records = rentals.size();
+                return true;
+
+            } catch (IOException ex) {
+                return false;
+            }
+        } finally {
+            WRITE_TEXT_TIMER.stop(start);
+            event.done(records);
         }
-        // close file
-        inFS.close();
-            
-        }catch(IOException error2 ) {
-            throw new RuntimeException("Oops! An error occured related to: " + filename);
+    }
+
+    /******************************************************************
+     * Reads rentals from a text file. The file is split into blocks
+     * of whole records that are parsed in parallel by TextImporter.
+     * Does not touch any ListModel, so it can run on another thread.
+     * 
+     * @param filename the name desired for the file
+     * @param progress told how many blocks have been parsed
+     * @return the rentals in the file, in file order
+     * @throws IllegalArgumentException if the filename is null
+     * @throws RuntimeException for various errors in creation
+     *****************************************************************/
+    static ArrayList<Rental> readText(String filename, ProgressListener progress) {
+        long start = READ_TEXT_TIMER.start();
+        FlightEvents.FileOperation event = FlightEvents.FileOperation.start("readText",
+                filename);
+        int records = -1;
+        try {
+            // make sure filename is correct
+            if (filename == null) {
+    			throw new IllegalArgumentException("Null filename");
+            }
+
+            ArrayList<Rental> rentals;
+            try {
+                rentals = TextImporter.read(new File(filename).toPath(), progress);
+            } catch (IOException error2) {
+                throw new RuntimeException("Oops! An error occured related to: " + filename);
+            }
+
+            records = rentals.size();
+            return rentals;
+        } finally {
+            READ_TEXT_TIMER.stop(start);
+            event.done(records);
         }
-        // Make sure files have been read correctly
-        System.out.print("Amount of games: "+ games + " Amount of consoles: " + consoles);
-        updateScreen();
-        
     }
 
     /******************************************************************
@@ -0,0 +1,428 @@
+package project2;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*************************************************************************
+ * Counters and timers kept while the program runs, and written in the
+ * Prometheus text format, either served over HTTP on the local machine
+ * or dumped to a file every so often.
+ *
+ * Counting is a LongAdder increment and timing adds a histogram with a
+ * bucket for every power of two nanoseconds, so neither takes locks.
+ * Code called for every cell or every price uses a sampled timer, which
+ * counts every call in a plain field and times one call in
+ * SAMPLE_EVERY, so it costs a few nanoseconds and can be left on.
+ *
+ * Exporting is started by GUIRentalStore from system properties:
+ * gamestore.metrics.port serves /metrics on that port, and
+ * gamestore.metrics.file dumps to that file every
+ * gamestore.metrics.period seconds, 60 by default.
+ ************************************************************************/
+
+public final class Metrics {
+
+    /** start of the name of every metric */
+    public static final String PREFIX = "gamestore_";
+
+    /** sampled timers time one call in this many, a power of two */
+    public static final int SAMPLE_EVERY = 64;
+
+    /** timers have buckets from 2^MIN_BITS nanoseconds, about 1 microsecond */
+    private static final int MIN_BITS = 10;
+
+    /** to 2^MAX_BITS nanoseconds, about 69 seconds */
+    private static final int MAX_BITS = 36;
+
+    /** every series, keyed by name and labels */
+    private static final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /******************************************************************
+     * Returns the counter of a name, creating it the first time.
+     *
+     * @param name the name, without PREFIX; should end in _total
+     * @param help what is counted
+     * @return the counter
+     *****************************************************************/
+    public static Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    /******************************************************************
+     * Returns the counter of a name and one label, creating it the
+     * first time.
+     *
+     * @param name the name, without PREFIX; should end in _total
+     * @param help what is counted
+     * @param label the name of the label
+     * @param value the value of the label
+     * @return the counter
+     *****************************************************************/
+    public static Counter counter(String name, String help, String label, String value) {
+        return (Counter) register(name, help, label, value, new Counter()).metric;
+    }
+
+    /******************************************************************
+     * Returns the timer of a name, creating it the first time.
+     *
+     * @param name the name, without PREFIX; should end in _seconds
+     * @param help what is timed
+     * @return the timer
+     *****************************************************************/
+    public static Timer timer(String name, String help) {
+        return timer(name, help, null, null);
+    }
+
+    /******************************************************************
+     * Returns the timer of a name and one label, creating it the
+     * first time.
+     *
+     * @param name the name, without PREFIX; should end in _seconds
+     * @param help what is timed
+     * @param label the name of the label
+     * @param value the value of the label
+     * @return the timer
+     *****************************************************************/
+    public static Timer timer(String name, String help, String label, String value) {
+        return (Timer) register(name, help, label, value, new Timer()).metric;
+    }
+
+    /******************************************************************
+     * Returns the sampled timer of a name and one label, creating it
+     * the first time. Along with the histogram of the sampled calls,
+     * the number of calls is exported as a counter named like the
+     * timer, with _seconds replaced by _calls_total.
+     *
+     * @param name the name, without PREFIX; must end in _seconds
+     * @param help what is timed
+     * @param label the name of the label
+     * @param value the value of the label
+     * @return the timer
+     *****************************************************************/
+    public static Timer sampledTimer(String name, String help, String label, String value) {
+        if (!name.endsWith("_seconds"))
+            throw new IllegalArgumentException("Timer name must end in _seconds: " + name);
+        Timer timer = (Timer) register(name, help + ", one call in " + SAMPLE_EVERY + " timed",
+                label, value, new Timer()).metric;
+        String calls = name.substring(0, name.length() - "_seconds".length()) + "_calls_total";
+        Series counted = register(calls, "Calls of what " + PREFIX + name + " times", label, value, timer);
+        counted.calls = true;
+        return timer;
+    }
+
+    /******************************************************************
+     * Writes every metric in the Prometheus text format.
+     *
+     * @param out where to write; not closed
+     * @throws IOException if out cannot be written
+     *****************************************************************/
+    public static void writeTo(Writer out) throws IOException {
+        // sorted, so that the series of one name are together
+        TreeMap<String, Series> sorted = new TreeMap<>(series);
+        String family = null;
+        for (Map.Entry<String, Series> entry : sorted.entrySet()) {
+            Series one = entry.getValue();
+            if (!one.name.equals(family)) {
+                family = one.name;
+                out.write("# HELP " + one.name + " " + one.help + "\n");
+                out.write("# TYPE " + one.name + (one.calls || one.metric instanceof Counter
+                        ? " counter\n" : " histogram\n"));
+            }
+            if (one.calls)
+                out.write(one.name + one.labels("") + " " + ((Timer) one.metric).getCalls() + "\n");
+            else if (one.metric instanceof Counter)
+                out.write(one.name + one.labels("") + " " + ((Counter) one.metric).get() + "\n");
+            else
+                ((Timer) one.metric).writeTo(out, one);
+        }
+    }
+
+    /******************************************************************
+     * Returns every metric in the Prometheus text format.
+     *
+     * @return the text
+     *****************************************************************/
+    public static String text() {
+        StringWriter out = new StringWriter();
+        try {
+            writeTo(out);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return out.toString();
+    }
+
+    /******************************************************************
+     * Serves the metrics at /metrics on a port of the local machine
+     * only.
+     *
+     * @param port the port, 0 for any free port
+     * @return the running server, stopped with stop
+     * @throws IOException if the port cannot be opened
+     *****************************************************************/
+    public static HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = text().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type",
+                    "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    /******************************************************************
+     * Writes the metrics to a file every so often, on a daemon thread.
+     * Each dump is written next to the file and then moved over it, so
+     * a reader never sees half a dump.
+     *
+     * @param file the file to write
+     * @param periodSeconds seconds between dumps
+     * @return the thread doing the dumps, stopped with shutdown
+     *****************************************************************/
+    public static ScheduledExecutorService dumpEvery(Path file, long periodSeconds) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                Files.write(temp, text().getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                System.err.println("Saving problem! metrics to " + file);
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return dumper;
+    }
+
+    /******************************************************************
+     * Starts the exports asked for by the gamestore.metrics system
+     * properties. An export that cannot be started is reported on
+     * System.err and the program goes on without it.
+     *****************************************************************/
+    public static void startFromProperties() {
+        String port = System.getProperty("gamestore.metrics.port");
+        if (port != null) {
+            try {
+                serve(Integer.parseInt(port));
+            } catch (IOException | NumberFormatException ex) {
+                System.err.println("Metrics not served on port " + port + ": " + ex);
+            }
+        }
+
+        String file = System.getProperty("gamestore.metrics.file");
+        if (file != null) {
+            long period = Long.getLong("gamestore.metrics.period", 60);
+            dumpEvery(Paths.get(file), Math.max(period, 1));
+        }
+    }
+
+    private static Series register(String name, String help, String label, String value,
+                                   Object metric) {
+        Series created = new Series(PREFIX + name, help,
+                label == null ? "" : label + "=\"" + escape(value) + "\"", metric);
+        Series existing = series.putIfAbsent(created.key(), created);
+        if (existing == null)
+            return created;
+        if (existing.metric.getClass() != metric.getClass())
+            throw new IllegalArgumentException("Metric " + name + " has another type");
+        return existing;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /*********************************************************************
+     * A number that only goes up.
+     *********************************************************************/
+    public static final class Counter {
+
+        /** the count */
+        private final LongAdder count = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /*********************************************************************
+     * A histogram of how long something took, with the number of
+     * times and the total time.
+     *
+     *     long start = timer.start();
+     *     ...
+     *     timer.stop(start);
+     *********************************************************************/
+    public static final class Timer {
+
+        /** times recorded */
+        private final LongAdder count = new LongAdder();
+
+        /** sum of the times recorded, in nanoseconds */
+        private final LongAdder nanos = new LongAdder();
+
+        /** times up to 2^(MIN_BITS + i) nanoseconds, not cumulative */
+        private final LongAdder[] buckets = new LongAdder[MAX_BITS - MIN_BITS + 1];
+
+        /**
+         * calls to startSampled; a plain field, so calls made on many
+         * threads at once may be missed, which is fine for a rate
+         */
+        private long calls;
+
+        private Timer() {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        public long start() {
+            return System.nanoTime();
+        }
+
+        public void stop(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        /******************************************************************
+         * Counts a call and starts timing it if it is one of the one in
+         * SAMPLE_EVERY that are timed, for code that is called too
+         * often to time every call. The count of the histogram is the
+         * number of calls timed, see getCalls for all of them.
+         *
+         * @return the start to give stopSampled, 0 if the call is not
+         * timed
+         *****************************************************************/
+        public long startSampled() {
+            if ((calls++ & (SAMPLE_EVERY - 1)) != 0)
+                return 0;
+            return System.nanoTime();
+        }
+
+        public void stopSampled(long start) {
+            if (start != 0)
+                record(System.nanoTime() - start);
+        }
+
+        /******************************************************************
+         * Records one time.
+         *
+         * @param elapsed the time in nanoseconds
+         *****************************************************************/
+        public void record(long elapsed) {
+            elapsed = Math.max(elapsed, 0);
+            count.increment();
+            nanos.add(elapsed);
+
+            // the smallest power of two that is at least elapsed
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(elapsed, 1) - 1);
+            if (bits <= MAX_BITS)
+                buckets[Math.max(bits, MIN_BITS) - MIN_BITS].increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        private void writeTo(Writer out, Series one) throws IOException {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                double le = (1L << (MIN_BITS + i)) / 1e9;
+                out.write(one.name + "_bucket" + one.labels("le=\"" + le + "\"") + " "
+                        + cumulative + "\n");
+            }
+            // read count last, so that it is never below a bucket
+            long total = Math.max(count.sum(), cumulative);
+            out.write(one.name + "_bucket" + one.labels("le=\"+Inf\"") + " " + total + "\n");
+            out.write(one.name + "_sum" + one.labels("") + " " + nanos.sum() / 1e9 + "\n");
+            out.write(one.name + "_count" + one.labels("") + " " + total + "\n");
+        }
+    }
+
+    /*********************************************************************
+     * One counter or timer with its name and labels.
+     *********************************************************************/
+    private static final class Series {
+
+        /** name with PREFIX */
+        final String name;
+
+        /** what is measured */
+        final String help;
+
+        /** the label as name="value", "" if none */
+        final String label;
+
+        /** the Counter or Timer */
+        final Object metric;
+
+        /** true if this is the count of calls of a sampled Timer */
+        boolean calls;
+
+        Series(String name, String help, String label, Object metric) {
+            this.name = name;
+            this.help = help;
+            this.label = label;
+            this.metric = metric;
+        }
+
+        String key() {
+            return name + "{" + label + "}";
+        }
+
+        /** the labels in braces, with one more label added, "" if none */
+        String labels(String extra) {
+            if (label.isEmpty() && extra.isEmpty())
+                return "";
+            if (label.isEmpty() || extra.isEmpty())
+                return "{" + label + extra + "}";
+            return "{" + label + "," + extra + "}";
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package project2;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*************************************************************************
+ * A table model that shows the screens of a RentalStore, for stores
+ * with far more rentals than fit in a ListModel. The rows of a screen
+ * are found once and kept on disk in a ScreenIndex, which also gives
+ * the row count; the rentals themselves are read from the store a page
+ * at a time as the table asks for them, and only the most recently
+ * used pages are kept. Memory use does not grow with the store.
+ *
+ * Rentals cannot be added or returned here; the model is for looking
+ * through a store, for example one written by RentalGenerator:
+ *
+ *     java project2.PagedTableModel database
+ ************************************************************************/
+
+public class PagedTableModel extends AbstractTableModel implements Closeable {
+
+    /** a universal version identifier for a Serializable class */
+    private static final long serialVersionUID = 1L;
+
+    /** rows read from the store at a time */
+    public static final int PAGE_ROWS = 256;
+
+    /** most pages kept in memory */
+    public static final int MAX_PAGES = 64;
+
+    /** the rentals shown */
+    private final transient RentalStore store;
+
+    /** directory the index files are written to */
+    private final transient Path directory;
+
+    /** the sorted list of every screen, made when first shown */
+    private final EnumMap<ScreenDisplay, ScreenView> views =
+            new EnumMap<>(ScreenDisplay.class);
+
+    /** the rows of every screen shown so far */
+    private final transient EnumMap<ScreenDisplay, ScreenIndex> indexes =
+            new EnumMap<>(ScreenDisplay.class);
+
+    /** pages of the current screen by page number, least recently used first */
+    private final LinkedHashMap<Integer, Rental[]> pages =
+            new LinkedHashMap<Integer, Rental[]>(16, .75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Rental[]> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            };
+
+    /** current screen being displayed */
+    private ScreenDisplay display;
+
+    /** pages read from the store since the model was made */
+    private long pagesRead;
+
+    /** indexes written since the model was made, to name their files */
+    private int indexesBuilt;
+
+    /******************************************************************
+     * Creates a model showing the Current Rental Screen of a store.
+     *
+     * @param store the rentals to show
+     * @param directory where to write the index of each screen
+     *****************************************************************/
+    public PagedTableModel(RentalStore store, Path directory) {
+        this.store = store;
+        this.directory = directory;
+        setDisplay(ScreenDisplay.CurrentRentalStatus);
+    }
+
+    /******************************************************************
+     * Shows another screen. The rows of a screen are found the first
+     * time it is shown, and again after the day changes if it depends
+     * on today's date.
+     *
+     * @param selected screen to change to
+     * @throws RuntimeException if the index of the screen cannot be
+     * written, in which case the screen shown stays as it was
+     *****************************************************************/
+    public void setDisplay(ScreenDisplay selected) {
+        // the screen only changes once its rows are known
+        index(selected);
+        ScreenDisplay previous = display;
+        display = selected;
+        pages.clear();
+
+        // the JTable only has to rebuild its columns if they are different
+        if (previous == null || ScreenColumns.namesOf(previous)
+                != ScreenColumns.namesOf(display))
+            fireTableStructureChanged();
+        else
+            fireTableDataChanged();
+    }
+
+    /******************************************************************
+     * Finds the rows of the current screen again if it depends on
+     * today's date and the day has changed since they were found.
+     *
+     * @return true if the rows were found again
+     * @throws RuntimeException if the index cannot be written, in
+     * which case the rows found before are still shown
+     *****************************************************************/
+    public boolean refresh() {
+        if (!index(display))
+            return false;
+        pages.clear();
+        fireTableDataChanged();
+        return true;
+    }
+
+    /******************************************************************
+     * Returns the screen being displayed.
+     *
+     * @return the current screen
+     *****************************************************************/
+    public ScreenDisplay getDisplay() {
+        return display;
+    }
+
+    /******************************************************************
+     * Finds the rows of a screen if they have not been found yet, or
+     * again if the screen depends on today's date and the day has
+     * changed. The rows found before are kept until the new ones are
+     * written.
+     *
+     * @param screen the screen to find the rows of
+     * @return true if the rows were found
+     * @throws RuntimeException if the index cannot be written
+     *****************************************************************/
+    private boolean index(ScreenDisplay screen) {
+        ScreenView view = views.computeIfAbsent(screen, ScreenView::forDisplay);
+        ScreenIndex index = indexes.get(screen);
+        if (index != null && view.isCurrent())
+            return false;
+
+        // a new file each time, so the old index stays whole until replaced
+        Path file = directory.resolve(screen.name() + "." + indexesBuilt + ".index");
+        try {
+            ScreenIndex built = ScreenIndex.build(view, store, file);
+            indexesBuilt++;
+            indexes.put(screen, built);
+            if (index != null)
+                index.close();
+        } catch (IOException ex) {
+            throw new RuntimeException("Loading problem: " + ex.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return ScreenColumns.getColumnName(display, col);
+    }
+
+    @Override
+    public int getColumnCount() {
+        return ScreenColumns.getColumnCount(display);
+    }
+
+    /******************************************************************
+     * Returns the number of rows of the current screen, from its index.
+     *****************************************************************/
+    @Override
+    public int getRowCount() {
+        return indexes.get(display).size();
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        return ScreenColumns.valueAt(display, views.get(display), get(row), col);
+    }
+
+    /******************************************************************
+     * Returns the rental shown at a row of the current screen, reading
+     * its page from the store if it is not kept.
+     *
+     * @param row the row of the current screen
+     * @return the rental at that row
+     *****************************************************************/
+    public Rental get(int row) {
+        ScreenIndex index = indexes.get(display);
+        if (row < 0 || row >= index.size())
+            throw new IndexOutOfBoundsException("Row " + row + " of " + index.size());
+
+        int number = row / PAGE_ROWS;
+        Rental[] page = pages.get(number);
+        if (page == null) {
+            int first = number * PAGE_ROWS;
+            page = new Rental[Math.min(PAGE_ROWS, index.size() - first)];
+            for (int i = 0; i < page.length; i++)
+                page[i] = store.toRental(index.rowAt(first + i));
+            pages.put(number, page);
+            pagesRead++;
+        }
+        return page[row % PAGE_ROWS];
+    }
+
+    /******************************************************************
+     * Returns how many pages have been read from the store, to see how
+     * well the page cache works.
+     *
+     * @return the number of pages read
+     *****************************************************************/
+    public long getPagesRead() {
+        return pagesRead;
+    }
+
+    /******************************************************************
+     * Deletes the index files of every screen. The store is left open.
+     *
+     * @throws IOException if a file cannot be deleted
+     *****************************************************************/
+    @Override
+    public void close() throws IOException {
+        for (ScreenIndex index : indexes.values())
+            index.close();
+        indexes.clear();
+        pages.clear();
+    }
+
+    /******************************************************************
+     * Shows the screens of a database file of any size in a window.
+     * The rentals are copied to a store in a temporary directory,
+     * which is deleted when the window is closed.
+     *
+     * @param args the database file
+     * @throws IOException if the temporary directory cannot be made
+     *****************************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java project2.PagedTableModel database");
+            System.exit(2);
+        }
+        Path directory = Files.createTempDirectory("gamestore");
+        RentalStore store = null;
+        PagedTableModel opened;
+        try {
+            store = RentalStore.load(args[0],
+                    directory.resolve("rentals.store"), ProgressListener.NONE);
+            opened = new PagedTableModel(store, directory);
+        } catch (IOException | RuntimeException ex) {
+            System.err.println(ex instanceof IOException
+                    ? "Loading problem: " + ex.getMessage() : ex.getMessage());
+            if (store != null)
+                store.close();
+            Files.deleteIfExists(directory);
+            System.exit(1);
+            return;
+        }
+        RentalStore loaded = store;
+        PagedTableModel model = opened;
+
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame(args[0] + " - " + loaded.size() + " rentals");
+            JComboBox<ScreenDisplay> screens = new JComboBox<>(ScreenDisplay.values());
+            JLabel rows = new JLabel(model.getRowCount() + " rows");
+            screens.addActionListener(e -> {
+                ScreenDisplay selected = (ScreenDisplay) screens.getSelectedItem();
+                if (selected == model.getDisplay())
+                    return;
+                frame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                try {
+                    model.setDisplay(selected);
+                } catch (RuntimeException ex) {
+                    // the table still shows the screen it showed before
+                    JOptionPane.showMessageDialog(frame, ex.getMessage());
+                    screens.setSelectedItem(model.getDisplay());
+                } finally {
+                    frame.setCursor(Cursor.getDefaultCursor());
+                }
+                rows.setText(model.getRowCount() + " rows");
+            });
+
+            JPanel top = new JPanel();
+            top.add(screens);
+            top.add(rows);
+            frame.add(top, BorderLayout.NORTH);
+            frame.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setSize(1070, 950);
+            frame.setVisible(true);
+        });
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                model.close();
+                loaded.close();
+                Files.deleteIfExists(directory);
+            } catch (IOException ex) {
+                // temporary files are left behind
+            }
+        }));
+    }
+}
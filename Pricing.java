@@ -0,0 +1,79 @@
+package project2;
+
+/*************************************************************************
+ * Rental pricing rules. A rental pays a base price that covers the first
+ * week, then a daily rate for every day after that. Costs are computed
+ * from the number of days rented, so no dates are walked and nothing is
+ * allocated.
+ ************************************************************************/
+
+public final class Pricing {
+
+    /** base price of renting a game */
+    public static final double GAME_BASE = 3;
+
+    /** base price of renting a console */
+    public static final double CONSOLE_BASE = 5;
+
+    /** days covered by the base price */
+    public static final int GRACE_DAYS = 7;
+
+    /** price per day for a game after the grace period */
+    public static final double GAME_DAILY_RATE = .5;
+
+    private Pricing() {
+    }
+
+    /******************************************************************
+     * Returns the price per day for a console after the grace period.
+     *
+     * @param type the type of console rented
+     * @return the daily rate, 0 if no console was selected
+     *****************************************************************/
+    public static double consoleDailyRate(ConsoleTypes type) {
+        if (type == null)
+            return 0;
+
+        switch (type) {
+            case NintendoSwich:
+            case PlayStation4Pro:
+            case SegaGenesisMini:
+                return 1.5;
+            case PlayStation4:
+            case XBoxOneS:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /******************************************************************
+     * Computes the cost of renting a console.
+     *
+     * @param days how many days the console was rented
+     * @param type the type of console rented
+     * @return the cost of the rental
+     *****************************************************************/
+    public static double consoleCost(int days, ConsoleTypes type) {
+        return CONSOLE_BASE + consoleDailyRate(type) * extraDays(days);
+    }
+
+    /******************************************************************
+     * Computes the cost of renting a game, plus the console that was
+     * rented along with it if there is one.
+     *
+     * @param days how many days the game was rented
+     * @param console the console rented with the game, or null
+     * @return the cost of the rental
+     *****************************************************************/
+    public static double gameCost(int days, ConsoleTypes console) {
+        double cost = GAME_BASE + GAME_DAILY_RATE * extraDays(days);
+        if (console != null)
+            cost += consoleCost(days, console);
+        return cost;
+    }
+
+    private static int extraDays(int days) {
+        return Math.max(days - GRACE_DAYS, 0);
+    }
+}
@@ -0,0 +1,91 @@
+package project2;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/*************************************************************************
+ * Input stream that reports how many bytes have been read to a
+ * ProgressListener, and stops with an InterruptedIOException once the
+ * listener is cancelled.
+ ************************************************************************/
+
+public class ProgressInputStream extends FilterInputStream {
+
+    /** bytes read between reports */
+    private static final long REPORT_EVERY = 1 << 16;
+
+    /** the listener to report to */
+    private final ProgressListener listener;
+
+    /** total bytes expected, usually the file length */
+    private final long total;
+
+    /** bytes read so far */
+    private long done;
+
+    /** value of done at the last report */
+    private long reported;
+
+    /** value of done at the last mark */
+    private long marked;
+
+    /******************************************************************
+     * Wraps a stream to report progress.
+     *
+     * @param in the stream to read from
+     * @param total total bytes expected
+     * @param listener the listener to report to
+     *****************************************************************/
+    public ProgressInputStream(InputStream in, long total, ProgressListener listener) {
+        super(in);
+        this.total = total;
+        this.listener = listener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value != -1)
+            advance(1);
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0)
+            advance(count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = super.skip(count);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public synchronized void mark(int limit) {
+        super.mark(limit);
+        marked = done;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        done = marked;
+    }
+
+    private void advance(long count) throws IOException {
+        done += count;
+        if (done - reported >= REPORT_EVERY) {
+            if (listener.isCancelled())
+                throw new InterruptedIOException("Cancelled");
+            listener.progress(done, total);
+            reported = done;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package project2;
+
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+
+/*************************************************************************
+ * Receives progress from a long load or save and tells it when to stop.
+ ************************************************************************/
+
+public interface ProgressListener {
+
+    /** listener for work that nobody is watching */
+    ProgressListener NONE = new ProgressListener() {
+        public void progress(long done, long total) {
+        }
+
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /******************************************************************
+     * Called from the working thread as the work moves along.
+     *
+     * @param done how much of the work is done
+     * @param total how much work there is in all
+     *****************************************************************/
+    void progress(long done, long total);
+
+    /******************************************************************
+     * Checked by the working thread, which stops as soon as it can
+     * once this returns true.
+     *
+     * @return true if the work should stop
+     *****************************************************************/
+    boolean isCancelled();
+
+    /******************************************************************
+     * Wraps an iterator so that progress is reported as items are
+     * taken from it.
+     *
+     * @param items the items to go through
+     * @param total how many items there are
+     * @param listener the listener to report to
+     * @param <T> the type of item
+     * @return an iterator over the same items
+     * @throws CancellationException from next when the listener
+     * has been cancelled
+     *****************************************************************/
+    static <T> Iterator<T> track(Iterator<T> items, long total, ProgressListener listener) {
+        return new Iterator<T>() {
+            private long done;
+
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            public T next() {
+                // checks in once every few thousand items
+                if ((done & 4095) == 0) {
+                    if (listener.isCancelled())
+                        throw new CancellationException();
+                    listener.progress(done, total);
+                }
+                done++;
+                return items.next();
+            }
+        };
+    }
+}
@@ -1,5 +1,9 @@
 package project2;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -11,17 +15,56 @@ Rental implements Serializable {
     /** What is the purpose of this variable (search google) */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fields written when a Rental is serialized. The dates are still
+     * written as GregorianCalendar objects, so files saved before the
+     * dates became epoch days can be read, and the other way round.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("nameOfRenter", String.class),
+            new ObjectStreamField("rentedOn", GregorianCalendar.class),
+            new ObjectStreamField("dueBack", GregorianCalendar.class),
+            new ObjectStreamField("actualDateReturned", GregorianCalendar.class)
+    };
+
+    /** Stored in place of a date that is not set */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
     /** The Name of person that is reserving the Rental*/
     protected String nameOfRenter;
 
-    /** The date the Rental was rented on */
-    protected GregorianCalendar rentedOn;
+    /** The epoch day the Rental was rented on, NO_DATE if not set */
+    protected int rentedOnDay = NO_DATE;
+
+    /** The epoch day the Rental is due back on, NO_DATE if not set */
+    protected int dueBackDay = NO_DATE;
+
+    /** The epoch day the Rental was returned on, NO_DATE if not returned */
+    protected int returnedDay = NO_DATE;
+
+    /** The name as shown and sorted on screen, saved until the name changes */
+    private transient String displayName;
+
+    /** Cost up to the due date, saved until the dates change */
+    private transient double estimatedCost;
 
-    /** The date the Rental was dueBack on */
-    protected GregorianCalendar dueBack;
+    /** Cost up to the return date, saved until the dates change */
+    private transient double realCost;
 
-    /** The actual date the Rental was returned on */
-    protected GregorianCalendar actualDateReturned;
+    /** Days past the due date, saved until the day changes */
+    private transient int daysLate;
+
+    /** The epoch day daysLate was computed on */
+    private transient int daysLateComputedOn;
+
+    /** True when estimatedCost and realCost hold current values */
+    private transient boolean costsValid;
+
+    /** True when daysLate holds a value computed on daysLateComputedOn */
+    private transient boolean daysLateValid;
+
+    /** Position of the Rental in the list of all rentals, set by ListModel */
+    transient int listIndex;
 
     public Rental() {
 
@@ -31,15 +74,101 @@ Rental implements Serializable {
                   GregorianCalendar rentedOn,
                   GregorianCalendar dueBack,
                   GregorianCalendar actualDateReturned) {
+        this(nameOfRenter, toDay(rentedOn), toDay(dueBack), toDay(actualDateReturned));
+    }
+
+    /**
+     * Creates a rental from dates that are already epoch days, as read
+     * from a file.
+     *
+     * @param nameOfRenter the name of the renter
+     * @param rentedOnDay the epoch day it was rented on, or NO_DATE
+     * @param dueBackDay the epoch day it is due back, or NO_DATE
+     * @param returnedDay the epoch day it was returned, or NO_DATE
+     */
+    Rental(String nameOfRenter, int rentedOnDay, int dueBackDay, int returnedDay) {
         this.nameOfRenter = nameOfRenter;
-        this.rentedOn = rentedOn;
-        this.dueBack = dueBack;
-        this.actualDateReturned = actualDateReturned;
+        this.rentedOnDay = rentedOnDay;
+        this.dueBackDay = dueBackDay;
+        this.returnedDay = returnedDay;
+    }
+
+    /**
+     * Returns the cost of the rental if it is checked out on the date
+     * given. The time of day is ignored.
+     *
+     * @param checkOut the date the rental ends
+     * @return the cost of the rental
+     */
+    public double getCost(GregorianCalendar checkOut) {
+        return getCost(DateMath.epochDay(checkOut));
+    }
+
+    /**
+     * Returns the cost of the rental if it is checked out on the epoch
+     * day given.
+     *
+     * @param checkOutDay the epoch day the rental ends
+     * @return the cost of the rental
+     */
+    public abstract double getCost(int checkOutDay);
+
+    /**
+     * Returns the cost of the rental if it is returned on its due date.
+     * The value is saved and only computed again after the dates change.
+     *
+     * @return the estimated cost of the rental
+     */
+    public double getEstimatedCost() {
+        computeCosts();
+        return estimatedCost;
+    }
 
-        
+    /**
+     * Returns the cost of the rental up to the date it was returned.
+     * The value is saved and only computed again after the dates change.
+     *
+     * @return the real cost of the rental, 0 if not returned yet
+     */
+    public double getRealCost() {
+        computeCosts();
+        return realCost;
     }
 
-    public abstract double getCost(GregorianCalendar checkOut);
+    /**
+     * Returns how many days past the due date the rental is today.
+     * The value is saved and only computed again on a new day or after
+     * the due date changes.
+     *
+     * @return the number of days late, 0 if not late
+     */
+    public int getDaysLate() {
+        long now = System.currentTimeMillis();
+        int today = DateMath.today(now);
+        if (!daysLateValid || daysLateComputedOn != today) {
+            daysLate = DateMath.daysLate(dueBackDay, now);
+            daysLateComputedOn = today;
+            daysLateValid = true;
+        }
+        return daysLate;
+    }
+
+    /**
+     * Forgets the saved costs and days late, must be called whenever
+     * anything used to price the rental changes.
+     */
+    protected void datesChanged() {
+        costsValid = false;
+        daysLateValid = false;
+    }
+
+    private void computeCosts() {
+        if (costsValid)
+            return;
+        estimatedCost = getCost(dueBackDay);
+        realCost = returnedDay == NO_DATE ? 0 : getCost(returnedDay);
+        costsValid = true;
+    }
 
     public String getNameOfRenter() {
         return nameOfRenter;
@@ -47,37 +176,146 @@ Rental implements Serializable {
 
     public void setNameOfRenter(String nameOfRenter) {
         this.nameOfRenter = nameOfRenter;
+        displayName = null;
     }
 
+    /**
+     * Returns the name of the renter the way the screens show it: the
+     * first letter as entered and the rest in lower case. The screens
+     * also sort by it. The stored name is not changed, and the result
+     * is saved until the name changes.
+     *
+     * @return the name for display, or null if there is no name
+     */
+    public String getDisplayName() {
+        if (displayName == null)
+            displayName = capitalize(nameOfRenter);
+        return displayName;
+    }
+
+    /**
+     * Puts a name in display form, first letter unchanged and the rest
+     * lower case. Only builds a new string if something changes.
+     *
+     * @param name the name to put in display form
+     * @return the name in display form, or null if name is null
+     */
+    static String capitalize(String name) {
+        if (name == null)
+            return null;
+        for (int i = 1; i < name.length(); i++)
+            if (Character.isUpperCase(name.charAt(i)))
+                return name.substring(0, 1) + name.substring(1).toLowerCase();
+        return name;
+    }
+
+    /**
+     * Returns a new calendar set to the day the Rental was rented on.
+     * Changing the calendar does not change the Rental.
+     *
+     * @return the rented on date, or null if not set
+     */
     public GregorianCalendar getRentedOn() {
-        return rentedOn;
+        return toCalendar(rentedOnDay);
     }
 
     public void setRentedOn(GregorianCalendar rentedOn) {
-            this.rentedOn = rentedOn;
+            this.rentedOnDay = toDay(rentedOn);
+            datesChanged();
     }
 
+    /**
+     * Returns a new calendar set to the day the Rental was returned on.
+     * Changing the calendar does not change the Rental.
+     *
+     * @return the returned date, or null if not returned yet
+     */
     public GregorianCalendar getActualDateReturned() {
-        return actualDateReturned;
+        return toCalendar(returnedDay);
     }
 
     public void setActualDateReturned(GregorianCalendar actualDateReturned) {
-        if(actualDateReturned != null)
-            this.actualDateReturned = actualDateReturned;
+        if(actualDateReturned != null) {
+            setReturnedDay(toDay(actualDateReturned));
+        }
     }
 
+    /**
+     * Returns a new calendar set to the day the Rental is due back.
+     * Changing the calendar does not change the Rental.
+     *
+     * @return the due date, or null if not set
+     */
     public GregorianCalendar getDueBack() {
-        return dueBack;
+        return toCalendar(dueBackDay);
     }
 
     public void setDueBack(GregorianCalendar dueBack) {
-        if (dueBack.compareTo(rentedOn) < 1) {
+        int day = toDay(dueBack);
+        if (day == NO_DATE || day <= rentedOnDay) {
             throw new IllegalArgumentException("Due date must be after the rented on date.");
         }
         else {
-            this.dueBack = dueBack;
+            this.dueBackDay = day;
+            datesChanged();
         }
     }
+
+    public int getRentedOnDay() {
+        return rentedOnDay;
+    }
+
+    public int getDueBackDay() {
+        return dueBackDay;
+    }
+
+    public int getReturnedDay() {
+        return returnedDay;
+    }
+
+    /**
+     * Sets the epoch day the Rental was returned on.
+     *
+     * @param returnedDay the epoch day it was returned
+     */
+    void setReturnedDay(int returnedDay) {
+        this.returnedDay = returnedDay;
+        datesChanged();
+    }
+
+    /**
+     * Tells if the Rental has been returned.
+     *
+     * @return true if a return date is set
+     */
+    public boolean isReturned() {
+        return returnedDay != NO_DATE;
+    }
+
+    private static int toDay(GregorianCalendar date) {
+        return date == null ? NO_DATE : DateMath.epochDay(date);
+    }
+
+    private static GregorianCalendar toCalendar(int day) {
+        return day == NO_DATE ? null : DateMath.toCalendar(day);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("nameOfRenter", nameOfRenter);
+        fields.put("rentedOn", getRentedOn());
+        fields.put("dueBack", getDueBack());
+        fields.put("actualDateReturned", getActualDateReturned());
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        nameOfRenter = (String) fields.get("nameOfRenter", null);
+        rentedOnDay = toDay((GregorianCalendar) fields.get("rentedOn", null));
+        dueBackDay = toDay((GregorianCalendar) fields.get("dueBack", null));
+        returnedDay = toDay((GregorianCalendar) fields.get("actualDateReturned", null));
+    }
     // following code used for debugging only
     // IntelliJ using the toString for displaying in debugger.
     @Override
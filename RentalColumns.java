@@ -0,0 +1,374 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/*************************************************************************
+ * Rentals stored column by column in parallel primitive arrays instead
+ * of as Rental objects. Dates are epoch days, the console is its
+ * ordinal and the renter and game names are ids into dictionaries of
+ * distinct names, so one rental takes about 22 bytes and a screen can
+ * be filtered by a plain loop over a few int arrays.
+ *
+ * Row numbers are the positions of the rentals in the list of all
+ * rentals, the same as Rental.listIndex. The rows that are not returned
+ * are also kept in a DueDateIndex.
+ ************************************************************************/
+
+public class RentalColumns {
+
+    /** kind of a row holding a Game */
+    public static final byte GAME = 0;
+
+    /** kind of a row holding a Console */
+    public static final byte CONSOLE = 1;
+
+    /** stored in place of a name or console that is not set */
+    public static final int NONE = -1;
+
+    /** every console type, indexed by ordinal */
+    private static final ConsoleTypes[] CONSOLES = ConsoleTypes.values();
+
+    /** number of rows in use */
+    private int size;
+
+    /** GAME or CONSOLE for every row */
+    byte[] kind;
+
+    /** console ordinal for every row, NONE if not set */
+    byte[] console;
+
+    /** epoch day each rental was rented on, Rental.NO_DATE if not set */
+    int[] rentedOn;
+
+    /** epoch day each rental is due back, Rental.NO_DATE if not set */
+    int[] dueBack;
+
+    /** epoch day each rental was returned, Rental.NO_DATE if not returned */
+    int[] returned;
+
+    /** renter name id for every row, NONE if not set */
+    int[] renter;
+
+    /** game name id for every row, NONE for consoles */
+    int[] game;
+
+    /** distinct renter names */
+    private final Dictionary renters = new Dictionary();
+
+    /** distinct game names */
+    private final Dictionary games = new Dictionary();
+
+    /** rows not returned yet, by the day they are due back */
+    private final DueDateIndex dueIndex = new DueDateIndex();
+
+    /******************************************************************
+     * Creates an empty store with room for some rows.
+     *
+     * @param capacity how many rows to make room for
+     *****************************************************************/
+    public RentalColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        kind = new byte[capacity];
+        console = new byte[capacity];
+        rentedOn = new int[capacity];
+        dueBack = new int[capacity];
+        returned = new int[capacity];
+        renter = new int[capacity];
+        game = new int[capacity];
+    }
+
+    public RentalColumns() {
+        this(16);
+    }
+
+    /******************************************************************
+     * Builds a store holding every rental of a list, in list order.
+     *
+     * @param rentals the rentals to store
+     * @return a new store
+     *****************************************************************/
+    public static RentalColumns of(List<? extends Rental> rentals) {
+        RentalColumns columns = new RentalColumns(rentals.size());
+        for (Rental unit : rentals)
+            columns.add(unit);
+        return columns;
+    }
+
+    /******************************************************************
+     * Returns the number of rows in the store.
+     *
+     * @return the number of rentals stored
+     *****************************************************************/
+    public int size() {
+        return size;
+    }
+
+    /******************************************************************
+     * Adds a rental as the last row.
+     *
+     * @param unit the rental to add
+     * @return the row it was stored at
+     *****************************************************************/
+    public int add(Rental unit) {
+        if (size == kind.length)
+            grow();
+
+        int row = size++;
+        rentedOn[row] = unit.rentedOnDay;
+        dueBack[row] = unit.dueBackDay;
+        returned[row] = unit.returnedDay;
+        renter[row] = renters.idOf(unit.nameOfRenter);
+
+        ConsoleTypes type;
+        if (unit instanceof Game) {
+            kind[row] = GAME;
+            game[row] = games.idOf(((Game) unit).getNameGame());
+            type = ((Game) unit).getConsole();
+        }
+        else {
+            kind[row] = CONSOLE;
+            game[row] = NONE;
+            type = ((Console) unit).getConsoleType();
+        }
+        console[row] = type == null ? NONE : (byte) type.ordinal();
+
+        if (returned[row] == Rental.NO_DATE && dueBack[row] != Rental.NO_DATE)
+            dueIndex.add(row, dueBack[row]);
+        return row;
+    }
+
+    /******************************************************************
+     * Records the day a stored rental was returned.
+     *
+     * @param row the row of the rental
+     * @param day the epoch day it was returned
+     *****************************************************************/
+    public void setReturned(int row, int day) {
+        checkRow(row);
+        if (returned[row] == Rental.NO_DATE && day != Rental.NO_DATE)
+            dueIndex.remove(row, dueBack[row]);
+        returned[row] = day;
+    }
+
+    /******************************************************************
+     * Changes the renter name of a stored rental.
+     *
+     * @param row the row of the rental
+     * @param name the new name
+     *****************************************************************/
+    public void setRenter(int row, String name) {
+        checkRow(row);
+        renter[row] = renters.idOf(name);
+    }
+
+    public byte getKind(int row) {
+        checkRow(row);
+        return kind[row];
+    }
+
+    public int getRentedOn(int row) {
+        checkRow(row);
+        return rentedOn[row];
+    }
+
+    public int getDueBack(int row) {
+        checkRow(row);
+        return dueBack[row];
+    }
+
+    public int getReturned(int row) {
+        checkRow(row);
+        return returned[row];
+    }
+
+    public ConsoleTypes getConsole(int row) {
+        checkRow(row);
+        return console[row] == NONE ? null : CONSOLES[console[row]];
+    }
+
+    public String getRenter(int row) {
+        checkRow(row);
+        return renters.name(renter[row]);
+    }
+
+    public String getGame(int row) {
+        checkRow(row);
+        return games.name(game[row]);
+    }
+
+    /******************************************************************
+     * Returns the index of the rows that are not returned yet. It is
+     * kept up to date by add and setReturned.
+     *
+     * @return the due date index of this store
+     *****************************************************************/
+    public DueDateIndex getDueIndex() {
+        return dueIndex;
+    }
+
+    /******************************************************************
+     * Returns the position of every renter name in sorted order,
+     * indexed by name id. Comparing two ranks gives the same answer as
+     * comparing the display names, see Rental.getDisplayName, with no
+     * name before every other name.
+     *
+     * @return the rank of every renter name id, shifted by one so
+     * that NONE can be looked up at index 0
+     *****************************************************************/
+    int[] renterRanks() {
+        return renters.ranks();
+    }
+
+    /******************************************************************
+     * Creates a Rental object holding the values of a row.
+     *
+     * @param row the row to read
+     * @return a new Game or Console
+     *****************************************************************/
+    public Rental toRental(int row) {
+        checkRow(row);
+        if (kind[row] == GAME)
+            return new Game(getRenter(row), rentedOn[row], dueBack[row], returned[row],
+                    getGame(row), getConsole(row));
+        return new Console(getRenter(row), rentedOn[row], dueBack[row], returned[row],
+                getConsole(row));
+    }
+
+    /******************************************************************
+     * Sorts rows by a 64 bit key, keeping rows with equal keys in the
+     * order they are given. Sorts with a radix sort on 16 bits at a
+     * time, skipping the digits that are the same in every key, so no
+     * objects or comparators are involved.
+     *
+     * @param keys the sort key of every row, sorted in place; compared
+     * as unsigned numbers
+     * @param rows the rows, moved along with their keys
+     * @param count how many entries of both arrays to sort
+     *****************************************************************/
+    static void sortStable(long[] keys, int[] rows, int count) {
+        if (count < 2)
+            return;
+
+        // finds the bits that are not the same in every key
+        long differ = 0;
+        for (int i = 1; i < count; i++)
+            differ |= keys[i] ^ keys[0];
+
+        long[] keyBuffer = null;
+        int[] rowBuffer = null;
+        long[] fromKeys = keys;
+        int[] fromRows = rows;
+        int[] counts = new int[1 << 16];
+
+        for (int shift = 0; shift < 64; shift += 16) {
+            if (((differ >>> shift) & 0xffff) == 0)
+                continue;
+            if (keyBuffer == null) {
+                keyBuffer = new long[count];
+                rowBuffer = new int[count];
+            }
+            long[] toKeys = fromKeys == keys ? keyBuffer : keys;
+            int[] toRows = fromRows == rows ? rowBuffer : rows;
+
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < count; i++)
+                counts[(int) (fromKeys[i] >>> shift) & 0xffff]++;
+            int total = 0;
+            for (int digit = 0; digit < counts.length; digit++) {
+                int n = counts[digit];
+                counts[digit] = total;
+                total += n;
+            }
+            for (int i = 0; i < count; i++) {
+                int at = counts[(int) (fromKeys[i] >>> shift) & 0xffff]++;
+                toKeys[at] = fromKeys[i];
+                toRows[at] = fromRows[i];
+            }
+            fromKeys = toKeys;
+            fromRows = toRows;
+        }
+
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, 0, keys, 0, count);
+            System.arraycopy(fromRows, 0, rows, 0, count);
+        }
+    }
+
+    private void grow() {
+        int capacity = kind.length * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        console = Arrays.copyOf(console, capacity);
+        rentedOn = Arrays.copyOf(rentedOn, capacity);
+        dueBack = Arrays.copyOf(dueBack, capacity);
+        returned = Arrays.copyOf(returned, capacity);
+        renter = Arrays.copyOf(renter, capacity);
+        game = Arrays.copyOf(game, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+
+    /*********************************************************************
+     * Distinct strings, each stored once and known by a small int id
+     * in the order they were first seen.
+     *********************************************************************/
+    static class Dictionary {
+
+        /** id of every string */
+        private final HashMap<String, Integer> ids = new HashMap<>();
+
+        /** every string, indexed by id */
+        private final ArrayList<String> names = new ArrayList<>();
+
+        /** sorted position of every id plus one, null until asked for */
+        private int[] ranks;
+
+        int idOf(String name) {
+            if (name == null)
+                return NONE;
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+                ranks = null;
+            }
+            return id;
+        }
+
+        String name(int id) {
+            return id == NONE ? null : names.get(id);
+        }
+
+        int[] ranks() {
+            if (ranks == null) {
+                // sorts the names the way the screens show them
+                String[] keys = new String[names.size()];
+                Integer[] order = new Integer[names.size()];
+                for (int i = 0; i < order.length; i++) {
+                    keys[i] = Rental.capitalize(names.get(i));
+                    order[i] = i;
+                }
+                Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+
+                // index 0 is NONE, which sorts before every name; names
+                // shown the same, such as "Bob" and "BOB", share a rank
+                // so the rows tie-break on their position, as in compare
+                int[] result = new int[names.size() + 1];
+                int rank = 0;
+                for (int i = 0; i < order.length; i++) {
+                    if (i == 0 || !keys[order[i]].equals(keys[order[i - 1]]))
+                        rank++;
+                    result[order[i] + 1] = rank;
+                }
+                ranks = result;
+            }
+            return ranks;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package project2;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/*************************************************************************
+ * Makes up rentals for testing, the way the loop at the end of
+ * ListModel.createList does, but for any number of rentals and with
+ * lifelike spreads: most rentals are short, most renters come back a
+ * few times while a few come back often, some consoles are rented far
+ * more than others, and most rentals come back on time. The same seed
+ * and settings always give the same rentals.
+ *
+ * Rentals are made one at a time as they are asked for, so a file of
+ * any size can be written without holding the rentals in memory.
+ ************************************************************************/
+
+public class RentalGenerator implements Iterator<Rental> {
+
+    /** share of rentals that are games, the rest are consoles */
+    public static final double DEFAULT_GAME_SHARE = .7;
+
+    /** share of rentals that are returned once they are due */
+    public static final double DEFAULT_RETURN_RATE = .95;
+
+    /** share of the returned rentals that came back late */
+    public static final double DEFAULT_LATE_RATE = .15;
+
+    /** number of days before the end day rentals are spread over */
+    public static final int DEFAULT_HISTORY_DAYS = 365;
+
+    /** last day rentals are made up to, fixed so a seed always gives the same rentals */
+    public static final int DEFAULT_END_DAY = DateMath.epochDay(2020, 12, 31);
+
+    /** average days a game is rented for */
+    private static final double GAME_MEAN_DAYS = 5;
+
+    /** average days a console is rented for */
+    private static final double CONSOLE_MEAN_DAYS = 10;
+
+    /** longest rental, in days */
+    private static final int MAX_RENTAL_DAYS = 60;
+
+    /** average days a late rental is late by */
+    private static final double LATE_MEAN_DAYS = 4;
+
+    /** share of games rented without a console */
+    private static final double NO_CONSOLE_SHARE = .02;
+
+    /** console types that are rented, most rented first */
+    private static final ConsoleTypes[] CONSOLES = {ConsoleTypes.PlayStation4,
+            ConsoleTypes.NintendoSwich, ConsoleTypes.XBoxOneS,
+            ConsoleTypes.PlayStation4Pro, ConsoleTypes.SegaGenesisMini};
+
+    /** how often each of CONSOLES is rented, adding up to 1 */
+    private static final double[] CONSOLE_SHARES = {.30, .25, .25, .15, .05};
+
+    /** game titles, most rented first */
+    private static final String[] TITLES = {"Mario Kart 8", "Minecraft",
+            "Call of Duty", "Fifa 21", "Zelda", "Animal Crossing", "Halo 5",
+            "Fortnite", "Red Dead Redemption 2", "Smash Bros", "Madden 21",
+            "Spider-Man", "God of War", "Tetris", "Sonic Mania", "Street Fighter"};
+
+    /** first names renter names are made of */
+    private static final String[] FIRST_NAMES = {"Ana", "ben", "Carla", "dev",
+            "Emma", "Finn", "grace", "Hugo", "Ivy", "jack", "Kai", "Lena",
+            "Maya", "noah", "Owen", "Priya", "Quinn", "Rosa", "sam", "Tara"};
+
+    /** last names renter names are made of */
+    private static final String[] LAST_NAMES = {"Smith", "jones", "Garcia",
+            "Nguyen", "Patel", "kim", "Brown", "Lopez", "Muller", "Rossi",
+            "Cohen", "Singh", "Walker", "Young", "Baker", "Reyes"};
+
+    /** makes every random choice */
+    private final Random rand;
+
+    /** number of rentals to make */
+    private final int count;
+
+    /** number of rentals made so far */
+    private int made;
+
+    /** last epoch day anything is rented or returned on */
+    private int endDay;
+
+    /** number of days before endDay rentals are spread over */
+    private int historyDays = DEFAULT_HISTORY_DAYS;
+
+    /** number of different renters */
+    private int renters;
+
+    /** share of rentals that are games */
+    private double gameShare = DEFAULT_GAME_SHARE;
+
+    /** share of rentals that are returned once they are due */
+    private double returnRate = DEFAULT_RETURN_RATE;
+
+    /** share of the returned rentals that came back late */
+    private double lateRate = DEFAULT_LATE_RATE;
+
+    /******************************************************************
+     * Creates a generator of rentals that end on DEFAULT_END_DAY, with
+     * one renter for about every eight rentals.
+     *
+     * @param count how many rentals to make
+     * @param seed the seed of the random choices
+     *****************************************************************/
+    public RentalGenerator(int count, long seed) {
+        if (count < 0)
+            throw new IllegalArgumentException("Count must not be negative");
+        this.count = count;
+        this.rand = new Random(seed);
+        this.endDay = DEFAULT_END_DAY;
+        this.renters = Math.max(count / 8, 1);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /******************************************************************
+     * Sets the last day anything is rented or returned on. Rentals
+     * due after it are not returned yet. Setting it to today gives
+     * rentals that look current on the screens, but that are different
+     * every day. Settings must be made before the first rental is taken.
+     *
+     * @param endDay an epoch day, see DateMath
+     *****************************************************************/
+    public void setEndDay(int endDay) {
+        this.endDay = endDay;
+    }
+
+    public void setHistoryDays(int historyDays) {
+        if (historyDays < 1)
+            throw new IllegalArgumentException("History must be at least one day");
+        this.historyDays = historyDays;
+    }
+
+    public void setRenters(int renters) {
+        if (renters < 1)
+            throw new IllegalArgumentException("There must be at least one renter");
+        this.renters = renters;
+    }
+
+    public void setGameShare(double gameShare) {
+        this.gameShare = checkShare(gameShare);
+    }
+
+    public void setReturnRate(double returnRate) {
+        this.returnRate = checkShare(returnRate);
+    }
+
+    public void setLateRate(double lateRate) {
+        this.lateRate = checkShare(lateRate);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return made < count;
+    }
+
+    /******************************************************************
+     * Makes the next rental.
+     *
+     * @return a new Game or Console
+     * @throws NoSuchElementException once count rentals were made
+     *****************************************************************/
+    @Override
+    public Rental next() {
+        if (made == count)
+            throw new NoSuchElementException();
+        made++;
+
+        String name = renterName(skewed(renters));
+        boolean isGame = rand.nextDouble() < gameShare;
+        int days = rentalDays(isGame ? GAME_MEAN_DAYS : CONSOLE_MEAN_DAYS);
+        int rentedOn = endDay - rand.nextInt(historyDays);
+        int dueBack = rentedOn + days;
+
+        // decides when it comes back; a day after endDay means not yet
+        int returned = Rental.NO_DATE;
+        if (rand.nextDouble() < returnRate) {
+            int day;
+            if (rand.nextDouble() < lateRate)
+                day = dueBack + 1 + exponential(LATE_MEAN_DAYS - 1);
+            else
+                day = rentedOn + rand.nextInt(days + 1);
+            if (day <= endDay)
+                returned = day;
+        }
+
+        ConsoleTypes console = pickConsole();
+        if (!isGame)
+            return new Console(name, rentedOn, dueBack, returned, console);
+        if (rand.nextDouble() < NO_CONSOLE_SHARE)
+            console = null;
+        return new Game(name, rentedOn, dueBack, returned,
+                TITLES[skewed(TITLES.length)], console);
+    }
+
+    /******************************************************************
+     * Writes the rentals that are left as a database file, the format
+     * saved by ListModel.saveDatabase. The file is written next to its
+     * final place and then moved there, and any journal of an older
+     * file of the same name is deleted.
+     *
+     * @param filename the file to write
+     * @param progress told how many rentals have been written
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public void writeDatabase(String filename, ProgressListener progress) throws IOException {
+        File temp = new File(filename + ".tmp");
+        try (OutputStream os = new BufferedOutputStream(
+                new FileOutputStream(temp), 1 << 16)) {
+            RentalSnapshot.write(ProgressListener.track(this, count - made, progress), os);
+        } catch (IOException | RuntimeException ex) {
+            temp.delete();
+            throw ex;
+        }
+        Files.move(temp.toPath(), new File(filename).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(RentalJournal.fileFor(filename).toPath());
+    }
+
+    /******************************************************************
+     * Writes the rentals that are left as a text file, the format
+     * saved by ListModel.saveAsText.
+     *
+     * @param filename the file to write
+     * @param progress told how many rentals have been written
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public void writeText(String filename, ProgressListener progress) throws IOException {
+        try (TextExporter out = new TextExporter(new File(filename).toPath())) {
+            out.writeCount(count - made);
+            Iterator<Rental> units = ProgressListener.track(this, count - made, progress);
+            while (units.hasNext())
+                out.write(units.next());
+        }
+    }
+
+    /******************************************************************
+     * Writes a file of made up rentals. Files ending in .txt are
+     * written as text, others as a database. The settings can be
+     * given before the count:
+     *
+     *     --end-day MM/dd/yyyy or today, --history-days n, --renters n,
+     *     --game-share x, --return-rate x, --late-rate x
+     *
+     * @param args the settings, the number of rentals, the file name
+     * and optionally the seed
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public static void main(String[] args) throws IOException {
+        int first = 0;
+        while (first + 1 < args.length && args[first].startsWith("--"))
+            first += 2;
+        if (args.length - first < 2 || args.length - first > 3) {
+            System.err.println("Usage: java project2.RentalGenerator [--end-day date | today]"
+                    + " [--history-days n] [--renters n] [--game-share x]"
+                    + " [--return-rate x] [--late-rate x] count file [seed]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[first]);
+        String filename = args[first + 1];
+        long seed = args.length - first == 3 ? Long.parseLong(args[first + 2]) : 13;
+
+        RentalGenerator generator = new RentalGenerator(count, seed);
+        try {
+            for (int i = 0; i < first; i += 2)
+                generator.set(args[i], args[i + 1]);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            System.err.println("Bad setting: " + ex.getMessage());
+            System.exit(2);
+        }
+
+        if (filename.endsWith(".txt"))
+            generator.writeText(filename, ProgressListener.NONE);
+        else
+            generator.writeDatabase(filename, ProgressListener.NONE);
+        System.out.println("Wrote " + count + " rentals to " + filename);
+    }
+
+    /******************************************************************
+     * Changes one setting from the command line.
+     *
+     * @param option the option, such as --renters
+     * @param value the value given for it
+     * @throws IllegalArgumentException if the option is unknown or the
+     * value is not allowed
+     *****************************************************************/
+    private void set(String option, String value) {
+        switch (option) {
+            case "--end-day":
+                if (value.equals("today")) {
+                    setEndDay(DateMath.today(System.currentTimeMillis()));
+                }
+                else {
+                    LocalDate date = LocalDate.parse(value, DateMath.DATE_FORMAT);
+                    setEndDay(DateMath.epochDay(date.getYear(), date.getMonthValue(),
+                            date.getDayOfMonth()));
+                }
+                break;
+            case "--history-days":
+                setHistoryDays(Integer.parseInt(value));
+                break;
+            case "--renters":
+                setRenters(Integer.parseInt(value));
+                break;
+            case "--game-share":
+                setGameShare(Double.parseDouble(value));
+                break;
+            case "--return-rate":
+                setReturnRate(Double.parseDouble(value));
+                break;
+            case "--late-rate":
+                setLateRate(Double.parseDouble(value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    /******************************************************************
+     * Picks a number below a limit, small numbers far more often than
+     * large ones, so a few renters and titles account for many
+     * rentals.
+     *
+     * @param limit the number of choices
+     * @return a number from 0 to limit - 1
+     *****************************************************************/
+    private int skewed(int limit) {
+        double u = rand.nextDouble();
+        return (int) (u * u * limit);
+    }
+
+    /******************************************************************
+     * Picks a number of days from an exponential spread.
+     *
+     * @param mean the average number of days
+     * @return the days, at least 0
+     *****************************************************************/
+    private int exponential(double mean) {
+        return (int) Math.round(-Math.log(1 - rand.nextDouble()) * mean);
+    }
+
+    private int rentalDays(double mean) {
+        return Math.min(1 + exponential(mean - 1), MAX_RENTAL_DAYS);
+    }
+
+    private ConsoleTypes pickConsole() {
+        double u = rand.nextDouble();
+        for (int i = 0; i < CONSOLES.length - 1; i++) {
+            u -= CONSOLE_SHARES[i];
+            if (u < 0)
+                return CONSOLES[i];
+        }
+        return CONSOLES[CONSOLES.length - 1];
+    }
+
+    /******************************************************************
+     * Returns the name of a renter. Every renter has a different name,
+     * written in mixed case the way renters type them.
+     *
+     * @param renter the number of the renter
+     * @return the name of that renter
+     *****************************************************************/
+    private static String renterName(int renter) {
+        int first = renter % FIRST_NAMES.length;
+        int last = (renter / FIRST_NAMES.length) % LAST_NAMES.length;
+        int round = renter / (FIRST_NAMES.length * LAST_NAMES.length);
+        String name = FIRST_NAMES[first] + " " + LAST_NAMES[last];
+        return round == 0 ? name : name + " " + (round + 1);
+    }
+
+    private static double checkShare(double share) {
+        if (!(share >= 0 && share <= 1))
+            throw new IllegalArgumentException("Share must be from 0 to 1: " + share);
+        return share;
+    }
+}
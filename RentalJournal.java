@@ -0,0 +1,452 @@
+package project2;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/*************************************************************************
+ * Append-only journal of the changes made since the database file was
+ * last saved. Every rental added and every rental returned is written
+ * as a small checksummed entry, as is every renter that is renamed, so
+ * saving only has to make the journal
+ * durable instead of rewriting the whole database.
+ *
+ * Entries are collected in memory and written by a background thread
+ * that forces them to disk in groups, so many changes share one fsync.
+ * The header holds how many rentals the database file had when the
+ * journal was started; a journal that does not match its database is
+ * ignored.
+ ************************************************************************/
+
+public class RentalJournal implements Closeable {
+
+    /** first four bytes of every journal file, "GSJL" */
+    public static final int MAGIC = 0x47534a4c;
+
+    /** version of the entry layout written by this class; version 1 had no renames */
+    public static final int VERSION = 2;
+
+    /** how long the writer waits for more entries before an fsync */
+    public static final long GROUP_COMMIT_MILLIS = 10;
+
+    /** size the journal may grow to before a full save is worth it */
+    public static final long COMPACT_BYTES = 16L * 1024 * 1024;
+
+    /** entry type of a rental being added */
+    static final byte ADD = 1;
+
+    /** entry type of a rental being returned */
+    static final byte RETURN = 2;
+
+    /** entry type of a renter being renamed */
+    static final byte RENAME = 3;
+
+    /** size of the file header in bytes */
+    private static final int HEADER_BYTES = 12;
+
+    /** the journal file */
+    private final FileChannel channel;
+
+    /** entries appended but not yet written */
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /** number of entries appended */
+    private long appended;
+
+    /** number of entries forced to disk */
+    private long durable;
+
+    /** the first error the writer ran into, reported by sync */
+    private IOException failure;
+
+    /** number of threads waiting in sync */
+    private int syncWaiters;
+
+    /** true once close has been called */
+    private boolean closed;
+
+    /** thread that writes and forces entries in groups */
+    private final Thread writer;
+
+    /** flushes the journal if the program exits without closing it */
+    private final Thread shutdownHook;
+
+    private RentalJournal(FileChannel channel) {
+        this.channel = channel;
+
+        writer = new Thread(this::writeLoop, "rental-journal");
+        writer.setDaemon(true);
+        writer.start();
+
+        shutdownHook = new Thread(this::closeQuietly, "rental-journal-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /******************************************************************
+     * Starts a new, empty journal, replacing any journal in the file.
+     *
+     * @param file the journal file
+     * @param baseCount how many rentals the database file holds
+     * @return the new journal
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public static RentalJournal create(File file, int baseCount) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(baseCount).flip();
+        while (header.hasRemaining())
+            channel.write(header);
+        channel.force(true);
+        return new RentalJournal(channel);
+    }
+
+    /******************************************************************
+     * Replays the journal of a database onto the rentals loaded from
+     * it, then keeps the journal open to record more changes. A
+     * damaged entry at the end, left by a crash in the middle of a
+     * write, is cut off. A missing journal is replaced by a new one.
+     * A journal that does not match the rentals, because it was
+     * started for a different save of the database or because chunks
+     * of the database were damaged, is moved aside to a file ending
+     * in .bad and reported, instead of being thrown away.
+     *
+     * @param file the journal file
+     * @param rentals the rentals loaded from the database file, in
+     * the order they were saved; changed in place
+     * @return the journal, ready for more changes
+     * @throws IOException if the file cannot be read or written
+     *****************************************************************/
+    public static RentalJournal resume(File file, ArrayList<Rental> rentals) throws IOException {
+        long validLength = replay(file, rentals);
+        if (validLength < 0) {
+            if (file.exists()) {
+                File bad = new File(file.getPath() + ".bad");
+                Files.move(file.toPath(), bad.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                System.err.println("Loading problem: journal " + file
+                        + " does not match its database, moved to " + bad);
+            }
+            return create(file, rentals.size());
+        }
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return new RentalJournal(channel);
+    }
+
+    /******************************************************************
+     * Replays the journal of a database onto the rentals loaded from
+     * it, without changing the journal. Replay stops at the first
+     * damaged or unfinished entry.
+     *
+     * @param file the journal file
+     * @param rentals the rentals loaded from the database file, in
+     * the order they were saved; changed in place
+     * @return the length of the journal up to the end of the last
+     * entry replayed, or -1 if there is no journal for this save of
+     * the database
+     * @throws IOException if the file cannot be read
+     *****************************************************************/
+    public static long replay(File file, ArrayList<Rental> rentals) throws IOException {
+        if (!file.exists())
+            return -1;
+
+        long validLength = HEADER_BYTES;
+        long fileLength = file.length();
+        try (InputStream in = Channels.newInputStream(
+                FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+            if (data.readInt() != MAGIC)
+                return -1;
+            int version = data.readInt();
+            if (version < 1 || version > VERSION || data.readInt() != rentals.size())
+                return -1;
+
+            while (true) {
+                int length = data.readInt();
+                int checksum = data.readInt();
+                if (length <= 0)
+                    break;
+                // a damaged length is not trusted for the size of the buffer
+                if (length > fileLength - validLength - 8)
+                    break;
+                byte[] entry = new byte[length];
+                data.readFully(entry);
+
+                CRC32 crc = new CRC32();
+                crc.update(entry, 0, length);
+                if ((int) crc.getValue() != checksum || !apply(entry, rentals))
+                    break;
+                validLength += 8 + length;
+            }
+        } catch (EOFException ex) {
+            // the last entry was not finished, resume cuts it off
+        }
+        return validLength;
+    }
+
+    /******************************************************************
+     * Returns the journal file kept next to a database file.
+     *
+     * @param database the database file
+     * @return the journal file of that database
+     *****************************************************************/
+    public static File fileFor(String database) {
+        return new File(database + ".journal");
+    }
+
+    /******************************************************************
+     * Records that a rental was added to the end of the list.
+     *
+     * @param unit the rental that was added
+     *****************************************************************/
+    public void appendAdd(Rental unit) {
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(entry);
+        try {
+            out.writeByte(ADD);
+            RentalSnapshot.writeRecord(out, unit);
+        } catch (IOException ex) {
+            throw new RuntimeException("Journal problem: " + ex.getMessage());
+        }
+        append(entry.toByteArray());
+    }
+
+    /******************************************************************
+     * Records that a rental was returned.
+     *
+     * @param index the position of the rental in the list
+     * @param returnedDay the epoch day it was returned on
+     *****************************************************************/
+    public void appendReturn(int index, int returnedDay) {
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(entry);
+        try {
+            out.writeByte(RETURN);
+            out.writeInt(index);
+            out.writeInt(returnedDay);
+        } catch (IOException ex) {
+            throw new RuntimeException("Journal problem: " + ex.getMessage());
+        }
+        append(entry.toByteArray());
+    }
+
+    /******************************************************************
+     * Records that the name of the renter of a rental was changed.
+     *
+     * @param index the position of the rental in the list
+     * @param name the new name
+     *****************************************************************/
+    public void appendRename(int index, String name) {
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(entry);
+        try {
+            out.writeByte(RENAME);
+            out.writeInt(index);
+            out.writeUTF(name);
+        } catch (IOException ex) {
+            throw new RuntimeException("Journal problem: " + ex.getMessage());
+        }
+        append(entry.toByteArray());
+    }
+
+    /******************************************************************
+     * Waits until every change appended so far is on disk.
+     *
+     * @throws IOException if the journal could not be written
+     *****************************************************************/
+    public synchronized void sync() throws IOException {
+        long target = appended;
+        syncWaiters++;
+        notifyAll();
+        try {
+            while (durable < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while saving journal");
+                }
+            }
+        } finally {
+            syncWaiters--;
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /******************************************************************
+     * Tells if the journal has been closed and takes no more changes.
+     *
+     * @return true once close has been called
+     *****************************************************************/
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /******************************************************************
+     * Tells if the journal has grown large enough that writing the
+     * whole database again would be better.
+     *
+     * @return true if the journal should be compacted
+     *****************************************************************/
+    public boolean needsCompaction() {
+        try {
+            return channel.size() > COMPACT_BYTES;
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+
+    /******************************************************************
+     * Writes the remaining changes, forces them to disk and closes the
+     * journal.
+     *
+     * @throws IOException if the journal could not be written
+     *****************************************************************/
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed)
+                return;
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ex) {
+                // already shutting down, the hook is what called close
+            }
+            channel.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            System.err.println("Journal problem: " + ex.getMessage());
+        }
+    }
+
+    private synchronized void append(byte[] entry) {
+        if (closed)
+            throw new IllegalStateException("Journal is closed");
+
+        CRC32 crc = new CRC32();
+        crc.update(entry, 0, entry.length);
+        DataOutputStream out = new DataOutputStream(pending);
+        try {
+            out.writeInt(entry.length);
+            out.writeInt((int) crc.getValue());
+            out.write(entry);
+        } catch (IOException ex) {
+            // writing to memory does not fail
+        }
+        appended++;
+        notifyAll();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchEnd;
+            synchronized (this) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                if (pending.size() == 0)
+                    return;
+
+                // gives other changes a moment to join this fsync,
+                // unless someone is already waiting for it
+                long deadline = System.currentTimeMillis() + GROUP_COMMIT_MILLIS;
+                long remaining = GROUP_COMMIT_MILLIS;
+                while (remaining > 0 && syncWaiters == 0 && !closed) {
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                batch = pending;
+                batchEnd = appended;
+                pending = new ByteArrayOutputStream();
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(false);
+            } catch (IOException ex) {
+                error = ex;
+            }
+
+            synchronized (this) {
+                if (error != null && failure == null)
+                    failure = error;
+                else if (error == null)
+                    durable = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    private static boolean apply(byte[] entry, ArrayList<Rental> rentals) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+        try {
+            byte type = in.readByte();
+            if (type == ADD) {
+                rentals.add(RentalSnapshot.readRecord(in));
+                return true;
+            }
+            if (type == RETURN) {
+                int index = in.readInt();
+                int returned = in.readInt();
+                if (index < 0 || index >= rentals.size())
+                    return false;
+                rentals.get(index).setReturnedDay(returned);
+                return true;
+            }
+            if (type == RENAME) {
+                int index = in.readInt();
+                String name = in.readUTF();
+                if (index < 0 || index >= rentals.size())
+                    return false;
+                rentals.get(index).setNameOfRenter(name);
+                return true;
+            }
+        } catch (IOException ex) {
+            // an entry that cannot be decoded ends the journal
+        }
+        return false;
+    }
+}
@@ -0,0 +1,457 @@
+package project2;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*************************************************************************
+ * The rentals of a store shared by many threads, such as several
+ * counters, a kiosk and jobs running in the background. Any thread may
+ * rent and return at any time; ListModel, which only the Swing thread
+ * may touch, is kept up to date through attach.
+ *
+ * Rentals are kept in STRIPES stripes, each with a lock of its own, so
+ * threads renting at the same time mostly take different locks and no
+ * lock is ever held for more than one stripe. A rental is never changed
+ * once it is in the registry: returning it puts a returned copy in its
+ * place. Readers take no lock at all. A snapshot sees every rental as
+ * it was before or after each change, never half changed.
+ *
+ * Every rental gets an id when it is rented, which is used to return
+ * it. Ids of rentals rented one after another by one thread go up, but
+ * ids are not given out in a strict order across threads.
+ ************************************************************************/
+
+public class RentalRegistry {
+
+    /** number of stripes, a power of two */
+    public static final int STRIPES = 16;
+
+    /** rentals in each block of a stripe */
+    private static final int BLOCK = 1024;
+
+    /** the stripes, each holding the rentals whose id has its number */
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /** told about every change, in order within each stripe */
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /** number of rentals */
+    private static final Metrics.Counter RENTS = Metrics.counter(
+            "registry_operations_total", "Rentals rented or returned in the registry",
+            "operation", "rent");
+
+    /** number of returns */
+    private static final Metrics.Counter RETURNS = Metrics.counter(
+            "registry_operations_total", "Rentals rented or returned in the registry",
+            "operation", "return");
+
+    /** number of times a rental had to wait for its stripe */
+    private static final Metrics.Counter WAITS = Metrics.counter(
+            "registry_waits_total", "Rents and returns that waited for another thread");
+
+    /*********************************************************************
+     * Receives the changes made to a registry. Listeners are called by
+     * the thread making the change while it holds the lock of the
+     * stripe, so they must be quick and must not change the registry.
+     *********************************************************************/
+    public interface Listener {
+
+        /******************************************************************
+         * Called after a rental was rented.
+         *
+         * @param id the id of the rental
+         * @param unit the rental, which must not be changed
+         *****************************************************************/
+        void rented(int id, Rental unit);
+
+        /******************************************************************
+         * Called after a rental was returned.
+         *
+         * @param id the id of the rental
+         * @param unit the rental as returned, which must not be changed
+         *****************************************************************/
+        void returned(int id, Rental unit);
+    }
+
+    public RentalRegistry() {
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Stripe();
+    }
+
+    /******************************************************************
+     * Adds a rental. The registry keeps a copy, so the rental given
+     * can still be changed by the caller.
+     *
+     * @param unit the Game or Console rented
+     * @return the id of the rental
+     *****************************************************************/
+    public int rent(Rental unit) {
+        Rental copy = copyOf(unit);
+        int number = lockStripe();
+        Stripe stripe = stripes[number];
+        try {
+            int id = stripe.append(copy) * STRIPES + number;
+            for (Listener listener : listeners)
+                listener.rented(id, copy);
+            RENTS.increment();
+            return id;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /******************************************************************
+     * Returns a rental on a day.
+     *
+     * @param id the id given by rent
+     * @param returnedDay the epoch day it was returned
+     * @return false if it had already been returned
+     * @throws IllegalArgumentException if there is no rental of that
+     * id or it is returned before it was rented
+     *****************************************************************/
+    public boolean returnRental(int id, int returnedDay) {
+        Stripe stripe = stripes[checkId(id) & (STRIPES - 1)];
+        if (!stripe.lock.tryLock()) {
+            WAITS.increment();
+            stripe.lock.lock();
+        }
+        try {
+            int index = id / STRIPES;
+            Rental unit = stripe.state.get(index);
+            if (unit == null)
+                throw new IllegalArgumentException("No rental with id " + id);
+            if (unit.isReturned())
+                return false;
+            if (returnedDay < unit.rentedOnDay)
+                throw new IllegalArgumentException("Returned before it was rented: " + id);
+
+            Rental returned = copyOf(unit);
+            returned.setReturnedDay(returnedDay);
+            stripe.replace(index, returned);
+            for (Listener listener : listeners)
+                listener.returned(id, returned);
+            RETURNS.increment();
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /******************************************************************
+     * Returns a copy of a rental as it is now.
+     *
+     * @param id the id given by rent
+     * @return a copy of the rental, null if there is none of that id
+     *****************************************************************/
+    public Rental get(int id) {
+        if (id < 0)
+            return null;
+        Rental unit = stripes[id & (STRIPES - 1)].state.get(id / STRIPES);
+        return unit == null ? null : copyOf(unit);
+    }
+
+    /******************************************************************
+     * Returns the number of rentals, which may already have changed.
+     *
+     * @return the number of rentals rented so far
+     *****************************************************************/
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes)
+            size += stripe.state.size;
+        return size;
+    }
+
+    /******************************************************************
+     * Takes a snapshot of the rentals, without any lock. Later changes
+     * do not change the snapshot.
+     *
+     * @return the rentals as they are now
+     *****************************************************************/
+    public Snapshot snapshot() {
+        State[] states = new State[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            states[i] = stripes[i].state;
+        return new Snapshot(states);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /******************************************************************
+     * Makes a ListModel show the rentals of the registry and keeps it
+     * up to date. The model is changed only on the Swing thread: its
+     * rentals are replaced by a snapshot, then every later change is
+     * passed to it in order. Any number of models may be attached.
+     *
+     * @param model the model to keep up to date
+     * @return the listener passing changes to the model, for
+     * removeListener
+     *****************************************************************/
+    public Listener attach(ListModel model) {
+        ModelListener listener = new ModelListener(model);
+
+        // no change may come between the snapshot and the first event
+        for (Stripe stripe : stripes)
+            stripe.lock.lock();
+        try {
+            Snapshot snapshot = snapshot();
+            HashMap<Integer, Rental> byId = new HashMap<>();
+            ArrayList<Rental> rentals = new ArrayList<>(snapshot.size());
+            for (int id = snapshot.seek(0); id < snapshot.end; id = snapshot.seek(id + 1)) {
+                Rental unit = snapshot.get(id);
+                byId.put(id, unit);
+                rentals.add(unit);
+            }
+            SwingUtilities.invokeLater(() -> {
+                listener.byId.putAll(byId);
+                model.replaceRentals(rentals, null, null);
+            });
+            listeners.add(listener);
+        } finally {
+            for (Stripe stripe : stripes)
+                stripe.lock.unlock();
+        }
+        return listener;
+    }
+
+    /******************************************************************
+     * Locks a stripe for a rent. Each thread starts at a stripe of its
+     * own and moves on to the next one that is free, waiting only if
+     * every stripe is busy.
+     *
+     * @return the number of the stripe locked
+     *****************************************************************/
+    private int lockStripe() {
+        int first = (int) mix(Thread.currentThread().getId()) & (STRIPES - 1);
+        for (int i = 0; i < STRIPES; i++) {
+            int number = (first + i) & (STRIPES - 1);
+            if (stripes[number].lock.tryLock())
+                return number;
+        }
+        WAITS.increment();
+        stripes[first].lock.lock();
+        return first;
+    }
+
+    private static long mix(long value) {
+        value *= 0x9E3779B97F4A7C15L;
+        return value ^ (value >>> 32);
+    }
+
+    private static int checkId(int id) {
+        if (id < 0)
+            throw new IllegalArgumentException("No rental with id " + id);
+        return id;
+    }
+
+    /******************************************************************
+     * Copies a rental, so that the copy can be changed without
+     * changing the rental.
+     *
+     * @param unit the Game or Console to copy
+     * @return a new rental with the same values
+     *****************************************************************/
+    static Rental copyOf(Rental unit) {
+        if (unit instanceof Game) {
+            Game game = (Game) unit;
+            return new Game(game.nameOfRenter, game.rentedOnDay, game.dueBackDay,
+                    game.returnedDay, game.getNameGame(), game.getConsole());
+        }
+        Console console = (Console) unit;
+        return new Console(console.nameOfRenter, console.rentedOnDay, console.dueBackDay,
+                console.returnedDay, console.getConsoleType());
+    }
+
+    /*********************************************************************
+     * The rentals of one stripe at one moment. Never changed once
+     * published, except that rentals may be appended past its size.
+     *********************************************************************/
+    private static final class State {
+
+        /** the rentals, BLOCK to a block */
+        final Rental[][] blocks;
+
+        /** number of rentals */
+        final int size;
+
+        State(Rental[][] blocks, int size) {
+            this.blocks = blocks;
+            this.size = size;
+        }
+
+        /** the rental at an index, null if there is none */
+        Rental get(int index) {
+            if (index >= size)
+                return null;
+            return blocks[index / BLOCK][index % BLOCK];
+        }
+    }
+
+    /*********************************************************************
+     * One stripe of rentals, changed only while its lock is held.
+     *********************************************************************/
+    private static final class Stripe {
+
+        /** held while the stripe is changed */
+        final ReentrantLock lock = new ReentrantLock();
+
+        /** the rentals as readers see them */
+        volatile State state = new State(new Rental[0][], 0);
+
+        /******************************************************************
+         * Adds a rental at the end. Blocks are filled in place, since
+         * published states do not look past their size, and the block
+         * list is only copied when a block is added.
+         *
+         * @return the index of the rental
+         *****************************************************************/
+        int append(Rental unit) {
+            State current = state;
+            int index = current.size;
+            if (index == Integer.MAX_VALUE / STRIPES)
+                throw new IllegalStateException("Too many rentals for one registry");
+            Rental[][] blocks = current.blocks;
+            if (index == blocks.length * BLOCK) {
+                blocks = Arrays.copyOf(blocks, blocks.length + 1);
+                blocks[blocks.length - 1] = new Rental[BLOCK];
+            }
+            blocks[index / BLOCK][index % BLOCK] = unit;
+            state = new State(blocks, index + 1);
+            return index;
+        }
+
+        /******************************************************************
+         * Puts a rental in place of another, copying only the block it
+         * is in, so snapshots taken before still see the old rental.
+         *****************************************************************/
+        void replace(int index, Rental unit) {
+            State current = state;
+            Rental[][] blocks = current.blocks.clone();
+            blocks[index / BLOCK] = blocks[index / BLOCK].clone();
+            blocks[index / BLOCK][index % BLOCK] = unit;
+            state = new State(blocks, current.size);
+        }
+    }
+
+    /*********************************************************************
+     * The rentals of a registry at one moment, in id order. Iterating
+     * gives copies, which may be changed freely.
+     *********************************************************************/
+    public static final class Snapshot implements Iterable<Rental> {
+
+        /** the state of every stripe */
+        private final State[] states;
+
+        /** number of rentals */
+        private final int size;
+
+        /** one past the largest id there can be a rental of */
+        private final int end;
+
+        private Snapshot(State[] states) {
+            this.states = states;
+            int total = 0;
+            int ids = 0;
+            for (State state : states) {
+                total += state.size;
+                ids = Math.max(ids, state.size * STRIPES);
+            }
+            size = total;
+            end = ids;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /******************************************************************
+         * Returns a copy of a rental as it was in the snapshot.
+         *
+         * @param id the id given by rent
+         * @return a copy of the rental, null if there was none
+         *****************************************************************/
+        public Rental get(int id) {
+            if (id < 0)
+                return null;
+            Rental unit = states[id & (STRIPES - 1)].get(id / STRIPES);
+            return unit == null ? null : copyOf(unit);
+        }
+
+        @Override
+        public Iterator<Rental> iterator() {
+            return new Iterator<Rental>() {
+                /** the next id to look at */
+                private int id = seek(0);
+
+                @Override
+                public boolean hasNext() {
+                    return id < end;
+                }
+
+                @Override
+                public Rental next() {
+                    if (id >= end)
+                        throw new NoSuchElementException();
+                    Rental unit = get(id);
+                    id = seek(id + 1);
+                    return unit;
+                }
+            };
+        }
+
+        /** the first id from a given one that has a rental, end if none */
+        private int seek(int from) {
+            while (from < end && from / STRIPES >= states[from & (STRIPES - 1)].size)
+                from++;
+            return from;
+        }
+    }
+
+    /*********************************************************************
+     * Passes the changes of the registry to a ListModel on the Swing
+     * thread.
+     *********************************************************************/
+    private static final class ModelListener implements Listener {
+
+        /** the model kept up to date */
+        private final ListModel model;
+
+        /** the rentals of the model by id, used only on the Swing thread */
+        private final HashMap<Integer, Rental> byId = new HashMap<>();
+
+        ModelListener(ListModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public void rented(int id, Rental unit) {
+            Rental copy = copyOf(unit);
+            SwingUtilities.invokeLater(() -> {
+                byId.put(id, copy);
+                model.add(copy);
+            });
+        }
+
+        @Override
+        public void returned(int id, Rental unit) {
+            int day = unit.returnedDay;
+            SwingUtilities.invokeLater(() -> {
+                Rental mine = byId.get(id);
+                mine.setReturnedDay(day);
+                model.update(0, mine);
+            });
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package project2;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/*************************************************************************
+ * Reads and writes the binary database file. The file starts with a
+ * header, then holds the rentals in chunks that each carry their own
+ * record count, length and CRC32 checksum, then an empty chunk that
+ * marks the end. Chunks are written and read as a stream, decoded in
+ * parallel when loading, and a damaged chunk only loses the rentals
+ * inside it.
+ *
+ * Each record stores its dates as epoch days and its console as the
+ * ordinal of the ConsoleTypes value.
+ ************************************************************************/
+
+public class RentalSnapshot {
+
+    /** first four bytes of every snapshot file, "GSDB" */
+    public static final int MAGIC = 0x47534442;
+
+    /** version of the record layout written by this class */
+    public static final int VERSION = 1;
+
+    /** most rentals written in one chunk */
+    public static final int RECORDS_PER_CHUNK = 4096;
+
+    /** bytes of a chunk header: record count, length and checksum */
+    private static final int CHUNK_HEADER_BYTES = 3 * Integer.BYTES;
+
+    /** most bytes one record can take, with both names as long as writeUTF allows */
+    private static final int MAX_RECORD_BYTES = 1 + 3 * Integer.BYTES + 1 + 2 * (1 + 2 + 65535);
+
+    /** record type of a Game */
+    static final byte GAME = 0;
+
+    /** record type of a Console */
+    static final byte CONSOLE = 1;
+
+    /** stored in place of a date that is not set, same as in Rental */
+    static final int NO_DATE = Rental.NO_DATE;
+
+    /** stored in place of a console that is not set */
+    static final byte NO_CONSOLE = -1;
+
+    /** every console type, indexed by ordinal */
+    private static final ConsoleTypes[] CONSOLES = ConsoleTypes.values();
+
+    /** number of chunks skipped by the last read because they were damaged */
+    private int damagedChunks;
+
+    /** number of rentals in the chunks read by the last read */
+    private int recordsRead;
+
+    /******************************************************************
+     * Writes rentals to a stream in snapshot format. Rentals are
+     * encoded one chunk at a time, so only one chunk is held in memory.
+     * The stream is not closed.
+     *
+     * @param rentals the rentals to write
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     *****************************************************************/
+    public static void write(Iterator<? extends Rental> rentals, OutputStream out)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream(64 * RECORDS_PER_CHUNK);
+        DataOutputStream records = new DataOutputStream(chunk);
+        int count = 0;
+        while (rentals.hasNext()) {
+            writeRecord(records, rentals.next());
+            count++;
+            if (count == RECORDS_PER_CHUNK) {
+                writeChunk(data, count, chunk);
+                count = 0;
+            }
+        }
+        if (count > 0)
+            writeChunk(data, count, chunk);
+
+        // an empty chunk marks the end of the file
+        data.writeInt(0);
+        data.writeInt(0);
+        data.writeInt(0);
+        data.flush();
+    }
+
+    /******************************************************************
+     * Reads every rental from a stream in snapshot format. Chunks are
+     * handed to the common fork-join pool to be decoded while the next
+     * chunk is read, and the rentals are returned in the order they
+     * were written. Chunks with a bad checksum are skipped and counted,
+     * see getDamagedChunks. The stream is not closed.
+     *
+     * @param in the stream to read from
+     * @return the rentals that could be read
+     * @throws IOException if the stream is not a snapshot or cannot be
+     * read
+     *****************************************************************/
+    public ArrayList<Rental> read(InputStream in) throws IOException {
+        return read(in, Long.MAX_VALUE);
+    }
+
+    /******************************************************************
+     * Reads every rental from a stream of a known length in snapshot
+     * format, see read. A chunk header giving a length past the end of
+     * the stream is taken as damaged.
+     *
+     * @param in the stream to read from
+     * @param size the number of bytes in the stream
+     * @return the rentals that could be read
+     * @throws IOException if the stream is not a snapshot or cannot be
+     * read
+     *****************************************************************/
+    public ArrayList<Rental> read(InputStream in, long size) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a rental snapshot");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+
+        damagedChunks = 0;
+        recordsRead = 0;
+        long left = size - 2 * Integer.BYTES;
+        ArrayList<CompletableFuture<ArrayList<Rental>>> chunks = new ArrayList<>();
+        try {
+            while (true) {
+                int count = data.readInt();
+                int length = data.readInt();
+                int checksum = data.readInt();
+                if (count == 0 && length == 0)
+                    break;
+                left -= CHUNK_HEADER_BYTES;
+                checkChunk(count, length, left);
+                left -= length;
+
+                byte[] payload = new byte[length];
+                data.readFully(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    damagedChunks++;
+                    continue;
+                }
+                chunks.add(CompletableFuture.supplyAsync(() -> decodeChunk(payload, count)));
+            }
+        } catch (EOFException ex) {
+            // the file was cut off, keep the chunks that were complete
+            damagedChunks++;
+        }
+
+        ArrayList<Rental> rentals = new ArrayList<>();
+        for (CompletableFuture<ArrayList<Rental>> chunk : chunks) {
+            ArrayList<Rental> decoded = chunk.join();
+            if (decoded == null)
+                damagedChunks++;
+            else
+                rentals.addAll(decoded);
+        }
+        recordsRead = rentals.size();
+        return rentals;
+    }
+
+    /******************************************************************
+     * Reads every rental from a stream in snapshot format one chunk at
+     * a time and hands them to an action in the order they were
+     * written, so a file of any size can be read without holding its
+     * rentals in memory. Damaged chunks are skipped and counted, see
+     * getDamagedChunks. The stream is not closed.
+     *
+     * @param in the stream to read from
+     * @param action given every rental that could be read
+     * @throws IOException if the stream is not a snapshot or cannot be
+     * read
+     *****************************************************************/
+    public void forEach(InputStream in, Consumer<? super Rental> action)
+            throws IOException {
+        forEach(in, Long.MAX_VALUE, action);
+    }
+
+    /******************************************************************
+     * Reads every rental from a stream of a known length in snapshot
+     * format one chunk at a time, see forEach. A chunk header giving a
+     * length past the end of the stream is taken as damaged.
+     *
+     * @param in the stream to read from
+     * @param size the number of bytes in the stream
+     * @param action given every rental that could be read
+     * @throws IOException if the stream is not a snapshot or cannot be
+     * read
+     *****************************************************************/
+    public void forEach(InputStream in, long size, Consumer<? super Rental> action)
+            throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a rental snapshot");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+
+        damagedChunks = 0;
+        recordsRead = 0;
+        long left = size - 2 * Integer.BYTES;
+        try {
+            while (true) {
+                int count = data.readInt();
+                int length = data.readInt();
+                int checksum = data.readInt();
+                if (count == 0 && length == 0)
+                    break;
+                left -= CHUNK_HEADER_BYTES;
+                checkChunk(count, length, left);
+                left -= length;
+
+                byte[] payload = new byte[length];
+                data.readFully(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload, 0, length);
+                ArrayList<Rental> decoded = (int) crc.getValue() == checksum
+                        ? decodeChunk(payload, count) : null;
+                if (decoded == null) {
+                    damagedChunks++;
+                    continue;
+                }
+                decoded.forEach(action);
+                recordsRead += decoded.size();
+            }
+        } catch (EOFException ex) {
+            // the file was cut off, keep the chunks that were complete
+            damagedChunks++;
+        }
+    }
+
+    /******************************************************************
+     * Reads the rentals saved in a database file, without replaying
+     * its journal. Files saved with Java serialization by older
+     * versions are still read. Damaged chunks are reported on
+     * System.err.
+     *
+     * @param filename the database file
+     * @param progress told how many bytes have been read
+     * @return the rentals in the file
+     * @throws IOException for various errors loading file
+     * @throws ClassNotFoundException if an old serialized file holds
+     * an unknown class
+     *****************************************************************/
+    @SuppressWarnings("unchecked")
+    public static ArrayList<Rental> readFile(String filename, ProgressListener progress)
+            throws IOException, ClassNotFoundException {
+        File file = new File(filename);
+        try (InputStream is = new BufferedInputStream(new ProgressInputStream(
+                new FileInputStream(file), file.length(), progress), 1 << 16)) {
+
+            // serialized files start with 0xACED instead of the snapshot header
+            is.mark(2);
+            boolean serialized = is.read() == 0xAC && is.read() == 0xED;
+            is.reset();
+
+            if (serialized)
+                return (ArrayList<Rental>) new ObjectInputStream(is).readObject();
+
+            RentalSnapshot snapshot = new RentalSnapshot();
+            ArrayList<Rental> loaded = snapshot.read(is, file.length());
+            if (snapshot.getDamagedChunks() > 0)
+                System.err.println("Loading problem: skipped "
+                        + snapshot.getDamagedChunks() + " damaged chunks in " + filename);
+            return loaded;
+        }
+    }
+
+    /******************************************************************
+     * Tells if a file is in snapshot format, rather than saved with
+     * Java serialization by an older version.
+     *
+     * @param filename the database file
+     * @return true if the file starts with a snapshot header
+     *****************************************************************/
+    public static boolean isSnapshot(String filename) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /******************************************************************
+     * Returns how many chunks the last read skipped because their
+     * checksum did not match or the file ended inside them.
+     *
+     * @return the number of damaged chunks
+     *****************************************************************/
+    public int getDamagedChunks() {
+        return damagedChunks;
+    }
+
+    /******************************************************************
+     * Returns how many rentals the last read loaded.
+     *
+     * @return the number of rentals read
+     *****************************************************************/
+    public int getRecordsRead() {
+        return recordsRead;
+    }
+
+    /******************************************************************
+     * Writes one rental in the compact record format.
+     *
+     * @param out where to write the record
+     * @param unit the rental to write
+     * @throws IOException if the record cannot be written
+     *****************************************************************/
+    static void writeRecord(DataOutputStream out, Rental unit) throws IOException {
+        out.writeByte(unit instanceof Game ? GAME : CONSOLE);
+        writeString(out, unit.getNameOfRenter());
+        out.writeInt(unit.getRentedOnDay());
+        out.writeInt(unit.getDueBackDay());
+        out.writeInt(unit.getReturnedDay());
+
+        if (unit instanceof Game) {
+            Game game = (Game) unit;
+            out.writeByte(toOrdinal(game.getConsole()));
+            writeString(out, game.getNameGame());
+        }
+        else {
+            out.writeByte(toOrdinal(((Console) unit).getConsoleType()));
+        }
+    }
+
+    /******************************************************************
+     * Reads one rental written by writeRecord.
+     *
+     * @param in where to read the record from
+     * @return the rental that was read
+     * @throws IOException if the record cannot be read or is damaged
+     *****************************************************************/
+    static Rental readRecord(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        String name = readString(in);
+        int rentedOn = in.readInt();
+        int dueBack = in.readInt();
+        int returned = in.readInt();
+        ConsoleTypes console = toConsole(in.readByte());
+
+        if (type == GAME)
+            return new Game(name, rentedOn, dueBack, returned, readString(in), console);
+        if (type == CONSOLE)
+            return new Console(name, rentedOn, dueBack, returned, console);
+        throw new IOException("Unknown record type " + type);
+    }
+
+    /******************************************************************
+     * Checks a chunk header before its payload is read, so a damaged
+     * header cannot make a read allocate more than a chunk can hold.
+     * A length past the end of the stream is read as a file that was
+     * cut off, which keeps the chunks before it.
+     *
+     * @param count the number of records in the chunk
+     * @param length the number of bytes of the payload
+     * @param left the bytes left in the stream after the header
+     * @throws EOFException if the payload would end past the stream
+     * @throws IOException if no chunk could have this header
+     *****************************************************************/
+    private static void checkChunk(int count, int length, long left) throws IOException {
+        if (count < 0 || count > RECORDS_PER_CHUNK || length < 0
+                || length > (long) count * MAX_RECORD_BYTES)
+            throw new IOException("Damaged chunk header");
+        if (length > left)
+            throw new EOFException("Damaged chunk header");
+    }
+
+    private static void writeChunk(DataOutputStream out, int count,
+                                   ByteArrayOutputStream chunk) throws IOException {
+        byte[] payload = chunk.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        out.writeInt(count);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+        chunk.reset();
+    }
+
+    private static ArrayList<Rental> decodeChunk(byte[] payload, int count) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        ArrayList<Rental> rentals = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++)
+                rentals.add(readRecord(in));
+        } catch (IOException ex) {
+            // checksum matched but the records do not, treat as damaged
+            return null;
+        }
+        return rentals;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static byte toOrdinal(ConsoleTypes console) {
+        return console == null ? NO_CONSOLE : (byte) console.ordinal();
+    }
+
+    private static ConsoleTypes toConsole(byte ordinal) throws IOException {
+        if (ordinal == NO_CONSOLE)
+            return null;
+        if (ordinal < 0 || ordinal >= CONSOLES.length)
+            throw new IOException("Unknown console " + ordinal);
+        return CONSOLES[ordinal];
+    }
+}
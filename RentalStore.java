@@ -0,0 +1,302 @@
+package project2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/*************************************************************************
+ * Rentals kept on disk instead of in memory, for stores too large to
+ * load into a ListModel. Every rental is a fixed size record in one
+ * file, so the file can be memory mapped and any row read in place;
+ * the operating system keeps only the parts being read in memory.
+ * Only the distinct renter and game names are held on the heap.
+ *
+ * Rows are numbered in the order the rentals were added, like
+ * Rental.listIndex. The store cannot be changed once it is made, and
+ * its file only has meaning while the store is open.
+ ************************************************************************/
+
+public class RentalStore implements Closeable {
+
+    /** bytes of one record: kind, console, three dates, renter, game */
+    static final int RECORD_BYTES = 22;
+
+    /** records mapped by each buffer, so every buffer stays below 2 GB */
+    private static final int SEGMENT_RECORDS = 1 << 24;
+
+    /** every console type, indexed by ordinal */
+    private static final ConsoleTypes[] CONSOLES = ConsoleTypes.values();
+
+    /** the file holding the records */
+    private final Path file;
+
+    /** number of records */
+    private final int size;
+
+    /** the file mapped SEGMENT_RECORDS records at a time */
+    private final ByteBuffer[] segments;
+
+    /** distinct renter names */
+    private final RentalColumns.Dictionary renters;
+
+    /** distinct game names */
+    private final RentalColumns.Dictionary games;
+
+    private RentalStore(Path file, int size, RentalColumns.Dictionary renters,
+                        RentalColumns.Dictionary games) throws IOException {
+        this.file = file;
+        this.size = size;
+        this.renters = renters;
+        this.games = games;
+
+        segments = new ByteBuffer[(size + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i * SEGMENT_RECORDS;
+                long records = Math.min(SEGMENT_RECORDS, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        first * RECORD_BYTES, records * RECORD_BYTES);
+            }
+        }
+    }
+
+    /******************************************************************
+     * Writes rentals to a new store file, one record at a time, and
+     * opens it.
+     *
+     * @param file the file to write; replaced if it exists
+     * @param rentals the rentals to store, in row order
+     * @return the open store
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public static RentalStore create(Path file, Iterator<? extends Rental> rentals)
+            throws IOException {
+        Writer writer = new Writer(file);
+        try {
+            while (rentals.hasNext())
+                writer.add(rentals.next());
+            return writer.finish();
+        } catch (UncheckedIOException ex) {
+            writer.abandon();
+            throw ex.getCause();
+        } catch (IOException | RuntimeException ex) {
+            writer.abandon();
+            throw ex;
+        }
+    }
+
+    /******************************************************************
+     * Copies the rentals saved in a database file to a new store file
+     * and opens it. The rentals are read one chunk at a time. The
+     * journal of the database is not replayed, so changes made since
+     * it was last saved are not in the store.
+     *
+     * @param database the database file to read
+     * @param file the store file to write; replaced if it exists
+     * @param progress told how many bytes of the database have been
+     * read
+     * @return the open store
+     * @throws IOException if the database is not a snapshot file or
+     * a file cannot be read or written
+     *****************************************************************/
+    public static RentalStore load(String database, Path file, ProgressListener progress)
+            throws IOException {
+        File source = new File(database);
+        Writer writer = new Writer(file);
+        try (InputStream is = new BufferedInputStream(new ProgressInputStream(
+                new FileInputStream(source), source.length(), progress), 1 << 16)) {
+            RentalSnapshot snapshot = new RentalSnapshot();
+            snapshot.forEach(is, source.length(), writer::add);
+            if (snapshot.getDamagedChunks() > 0)
+                System.err.println("Loading problem: skipped "
+                        + snapshot.getDamagedChunks() + " damaged chunks in " + database);
+            return writer.finish();
+        } catch (UncheckedIOException ex) {
+            writer.abandon();
+            throw ex.getCause();
+        } catch (IOException | RuntimeException ex) {
+            writer.abandon();
+            throw ex;
+        }
+    }
+
+    /******************************************************************
+     * Returns the number of rentals in the store.
+     *
+     * @return the number of rows
+     *****************************************************************/
+    public int size() {
+        return size;
+    }
+
+    public byte getKind(int row) {
+        return segment(row).get(offset(row));
+    }
+
+    public int getRentedOn(int row) {
+        return segment(row).getInt(offset(row) + 2);
+    }
+
+    public int getDueBack(int row) {
+        return segment(row).getInt(offset(row) + 6);
+    }
+
+    public int getReturned(int row) {
+        return segment(row).getInt(offset(row) + 10);
+    }
+
+    /******************************************************************
+     * Returns the id of the renter name of a row, RentalColumns.NONE
+     * if it has none. Ids index renterRanks after adding one.
+     *
+     * @param row the row to read
+     * @return the renter name id
+     *****************************************************************/
+    public int getRenterId(int row) {
+        return segment(row).getInt(offset(row) + 14);
+    }
+
+    /******************************************************************
+     * Returns the position of every renter name in sorted order, the
+     * same way as RentalColumns.renterRanks.
+     *
+     * @return the rank of every renter name id, shifted by one so
+     * that NONE can be looked up at index 0
+     *****************************************************************/
+    int[] renterRanks() {
+        return renters.ranks();
+    }
+
+    /******************************************************************
+     * Creates a Rental object holding the values of a row, with the
+     * row as its list index.
+     *
+     * @param row the row to read
+     * @return a new Game or Console
+     *****************************************************************/
+    public Rental toRental(int row) {
+        ByteBuffer segment = segment(row);
+        int offset = offset(row);
+        byte kind = segment.get(offset);
+        byte ordinal = segment.get(offset + 1);
+        int rentedOn = segment.getInt(offset + 2);
+        int dueBack = segment.getInt(offset + 6);
+        int returned = segment.getInt(offset + 10);
+        String renter = renters.name(segment.getInt(offset + 14));
+        ConsoleTypes console = ordinal == RentalColumns.NONE ? null : CONSOLES[ordinal];
+
+        Rental unit;
+        if (kind == RentalColumns.GAME)
+            unit = new Game(renter, rentedOn, dueBack, returned,
+                    games.name(segment.getInt(offset + 18)), console);
+        else
+            unit = new Console(renter, rentedOn, dueBack, returned, console);
+        unit.listIndex = row;
+        return unit;
+    }
+
+    /******************************************************************
+     * Deletes the store file. Rows must not be read afterwards.
+     *
+     * @throws IOException if the file cannot be deleted
+     *****************************************************************/
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private ByteBuffer segment(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        return segments[row / SEGMENT_RECORDS];
+    }
+
+    private static int offset(int row) {
+        return (row % SEGMENT_RECORDS) * RECORD_BYTES;
+    }
+
+    /*********************************************************************
+     * Writes the records of a new store and collects its names.
+     *********************************************************************/
+    private static class Writer {
+
+        /** the file being written */
+        private final Path file;
+
+        /** where the records are written */
+        private final DataOutputStream out;
+
+        /** distinct renter names */
+        private final RentalColumns.Dictionary renters = new RentalColumns.Dictionary();
+
+        /** distinct game names */
+        private final RentalColumns.Dictionary games = new RentalColumns.Dictionary();
+
+        /** number of records written */
+        private int size;
+
+        Writer(Path file) throws IOException {
+            this.file = file;
+            OutputStream os = Files.newOutputStream(file);
+            out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+        }
+
+        /** writes one record, IOExceptions are thrown unchecked */
+        void add(Rental unit) {
+            if (size == Integer.MAX_VALUE)
+                throw new IllegalStateException("Too many rentals for one store");
+            ConsoleTypes console;
+            int game;
+            if (unit instanceof Game) {
+                console = ((Game) unit).getConsole();
+                game = games.idOf(((Game) unit).getNameGame());
+            }
+            else {
+                console = ((Console) unit).getConsoleType();
+                game = RentalColumns.NONE;
+            }
+
+            try {
+                out.writeByte(unit instanceof Game ? RentalColumns.GAME : RentalColumns.CONSOLE);
+                out.writeByte(console == null ? RentalColumns.NONE : console.ordinal());
+                out.writeInt(unit.rentedOnDay);
+                out.writeInt(unit.dueBackDay);
+                out.writeInt(unit.returnedDay);
+                out.writeInt(renters.idOf(unit.nameOfRenter));
+                out.writeInt(game);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            size++;
+        }
+
+        /** completes the file and opens the store */
+        RentalStore finish() throws IOException {
+            out.close();
+            return new RentalStore(file, size, renters, games);
+        }
+
+        /** deletes the file after something went wrong */
+        void abandon() {
+            try {
+                out.close();
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                // the file is left behind, it is only a store being made
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/*************************************************************************
+ * Finds the rentals of a renter without looking at every rental. Names
+ * are matched without regard to case. A hash map gives the rentals of
+ * one name, and a sorted set of the names answers prefix searches.
+ * The rentals of each renter are kept in the order they were added.
+ ************************************************************************/
+
+public class RenterIndex {
+
+    /** rentals of every name, keyed by the name in lower case */
+    private final HashMap<String, ArrayList<Rental>> byName = new HashMap<>();
+
+    /** every key of byName, sorted */
+    private final TreeSet<String> names = new TreeSet<>();
+
+    /******************************************************************
+     * Builds an index of every rental in a list.
+     *
+     * @param rentals the rentals to index
+     * @return a new index
+     *****************************************************************/
+    public static RenterIndex of(List<? extends Rental> rentals) {
+        RenterIndex index = new RenterIndex();
+        for (Rental unit : rentals)
+            index.add(unit);
+        return index;
+    }
+
+    /******************************************************************
+     * Adds a rental under its current name of renter. Rentals with no
+     * name are not indexed.
+     *
+     * @param unit the rental to add
+     *****************************************************************/
+    public void add(Rental unit) {
+        String key = keyOf(unit.getNameOfRenter());
+        if (key == null)
+            return;
+
+        ArrayList<Rental> rentals = byName.get(key);
+        if (rentals == null) {
+            rentals = new ArrayList<>(2);
+            byName.put(key, rentals);
+            names.add(key);
+        }
+        rentals.add(unit);
+    }
+
+    /******************************************************************
+     * Moves a rental from the name it had to the name it has now. Must
+     * be called after every change to the name of an indexed rental.
+     *
+     * @param unit the rental that was renamed
+     * @param oldName the name it had when it was indexed
+     *****************************************************************/
+    public void renamed(Rental unit, String oldName) {
+        String oldKey = keyOf(oldName);
+        if (oldKey != null && oldKey.equals(keyOf(unit.getNameOfRenter())))
+            return;
+
+        ArrayList<Rental> rentals = oldKey == null ? null : byName.get(oldKey);
+        if (rentals != null) {
+            for (int i = 0; i < rentals.size(); i++) {
+                if (rentals.get(i) == unit) {
+                    rentals.remove(i);
+                    break;
+                }
+            }
+            if (rentals.isEmpty()) {
+                byName.remove(oldKey);
+                names.remove(oldKey);
+            }
+        }
+        add(unit);
+    }
+
+    /******************************************************************
+     * Returns the rentals of one renter.
+     *
+     * @param name the name of the renter, in any case
+     * @return the rentals in the order they were added, an empty list
+     * if there are none; the list must not be changed
+     *****************************************************************/
+    public List<Rental> find(String name) {
+        String key = keyOf(name);
+        ArrayList<Rental> rentals = key == null ? null : byName.get(key);
+        if (rentals == null)
+            return Collections.emptyList();
+        return Collections.unmodifiableList(rentals);
+    }
+
+    /******************************************************************
+     * Returns the names of the renters whose name starts with a prefix.
+     *
+     * @param prefix the start of the name, in any case
+     * @return the matching names in lower case, sorted
+     *****************************************************************/
+    public List<String> findNames(String prefix) {
+        String start = keyOf(prefix);
+        ArrayList<String> result = new ArrayList<>();
+        if (start == null)
+            return result;
+
+        // the names with the prefix all come right after it
+        for (String name : names.tailSet(start)) {
+            if (!name.startsWith(start))
+                break;
+            result.add(name);
+        }
+        return result;
+    }
+
+    /******************************************************************
+     * Returns the rentals of every renter whose name starts with a
+     * prefix.
+     *
+     * @param prefix the start of the name, in any case
+     * @return the rentals, grouped by name in sorted order
+     *****************************************************************/
+    public List<Rental> findByPrefix(String prefix) {
+        ArrayList<Rental> result = new ArrayList<>();
+        for (String name : findNames(prefix))
+            result.addAll(byName.get(name));
+        return result;
+    }
+
+    /******************************************************************
+     * Returns the number of distinct renter names.
+     *
+     * @return how many names are indexed
+     *****************************************************************/
+    public int size() {
+        return byName.size();
+    }
+
+    private static String keyOf(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+}
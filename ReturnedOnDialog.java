@@ -81,7 +81,7 @@ public class ReturnedOnDialog extends JDialog implements ActionListener {
 		// if OK clicked the fill the object
 		if (button == okButton) {
 
-			if (unit.actualDateReturned != null) {
+			if (unit.isReturned()) {
 				JOptionPane.showMessageDialog(null,"Item has already been returned!");
 				closeStatus = CANCEL;
 			}
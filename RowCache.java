@@ -0,0 +1,124 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*************************************************************************
+ * The cell values of the rows of one screen that are on or near the
+ * part of the table that can be seen. A screen only knows which
+ * rentals it shows; costs, formatted dates and days late are worked
+ * out here the first time a row is painted or prefetched, and then
+ * kept until the screen changes or the day does.
+ *
+ * Rows are kept in CAPACITY slots chosen by row number, so any run of
+ * up to CAPACITY rows next to each other, such as the visible rows
+ * and a page either side, fits without pushing each other out.
+ ************************************************************************/
+
+public class RowCache {
+
+    /** number of rows kept, a power of two */
+    public static final int CAPACITY = 512;
+
+    /** row number held in each slot, -1 if empty */
+    private final int[] rowOf = new int[CAPACITY];
+
+    /** cell values of the row in each slot */
+    private final Object[][] cells = new Object[CAPACITY][];
+
+    /** time the values stop being right, the next local midnight */
+    private long validUntil = Long.MIN_VALUE;
+
+    /** rows worked out since the cache was made */
+    private long rowsBuilt;
+
+    public RowCache() {
+        Arrays.fill(rowOf, -1);
+    }
+
+    /******************************************************************
+     * Returns the value of one cell, working out the whole row if it
+     * is not kept.
+     *
+     * @param screen the screen shown
+     * @param view the sorted list of that screen
+     * @param rows the rentals of that screen, in display order
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the value to show
+     *****************************************************************/
+    public Object get(ScreenDisplay screen, ScreenView view, List<Rental> rows,
+                      int row, int col) {
+        checkDay();
+        int slot = row & (CAPACITY - 1);
+        if (rowOf[slot] != row)
+            build(screen, view, rows, row, slot);
+        return cells[slot][col];
+    }
+
+    /******************************************************************
+     * Works out every row of a range that is not kept yet, such as
+     * the rows just above and below the visible part of the table.
+     * Only the last CAPACITY rows of a longer range are kept.
+     *
+     * @param screen the screen shown
+     * @param view the sorted list of that screen
+     * @param rows the rentals of that screen, in display order
+     * @param first the first row of the range
+     * @param last the last row of the range
+     *****************************************************************/
+    public void prefetch(ScreenDisplay screen, ScreenView view, List<Rental> rows,
+                         int first, int last) {
+        checkDay();
+        first = Math.max(first, 0);
+        last = Math.min(last, rows.size() - 1);
+        first = Math.max(first, last - CAPACITY + 1);
+        for (int row = first; row <= last; row++) {
+            int slot = row & (CAPACITY - 1);
+            if (rowOf[slot] != row)
+                build(screen, view, rows, row, slot);
+        }
+    }
+
+    /******************************************************************
+     * Forgets every row, for when the rows of the screen or the
+     * screen itself have changed.
+     *****************************************************************/
+    public void clear() {
+        Arrays.fill(rowOf, -1);
+        Arrays.fill(cells, null);
+    }
+
+    /******************************************************************
+     * Returns how many rows have been worked out, to see how well the
+     * cache works.
+     *
+     * @return the number of rows built
+     *****************************************************************/
+    public long getRowsBuilt() {
+        return rowsBuilt;
+    }
+
+    private void build(ScreenDisplay screen, ScreenView view, List<Rental> rows,
+                       int row, int slot) {
+        Rental unit = rows.get(row);
+        Object[] values = new Object[ScreenColumns.getColumnCount(screen)];
+        for (int col = 0; col < values.length; col++)
+            values[col] = ScreenColumns.valueAt(screen, view, unit, col);
+        cells[slot] = values;
+        rowOf[slot] = row;
+        rowsBuilt++;
+    }
+
+    /******************************************************************
+     * Forgets every row once the day has changed, since the days late
+     * of a rental go up at midnight.
+     *****************************************************************/
+    private void checkDay() {
+        long now = System.currentTimeMillis();
+        if (now < validUntil)
+            return;
+        clear();
+        validUntil = DateMath.toCalendar(DateMath.today(now) + 1).getTimeInMillis();
+    }
+}
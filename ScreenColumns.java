@@ -0,0 +1,263 @@
+package project2;
+
+/*************************************************************************
+ * The columns every screen shows and the value of each column for a
+ * rental. Used by ListModel for the GUI and by ScreenReport for reports,
+ * so both show the same thing; nothing here needs Swing.
+ ************************************************************************/
+
+public final class ScreenColumns {
+
+    /**
+     * list of collumns needed for Current Rental Screen, both Within 7 Days Screens,
+     * and 14 Days Late Screen.
+     */
+    private static final String[] CURRENT_RENTALS = {"Renter\'s Name", "Est. Cost",
+            "Rented On", "Due Date ", "Console", "Name of the Game"};
+
+    /** list of collumns needed for Returned Screen */
+    private static final String[] RETURNED = {"Renter\'s Name", "Rented On Date",
+            "Due Date", "Actual date returned ", "Est. Cost", " Real Cost"};
+
+    /** list of collumns needed for Everything Screen */
+    private static final String[] EVERYTHING = {"Renter\'s Name", "Rented On Date",
+            "Due Date", "Actual date returned ", "Est. Cost", " Real Cost",
+            "Console", "Name of the Game"};
+
+    /** list of collumns needed for Late Rentals Screen */
+    private static final String[] LATE = {"Renter\'s Name", "Est. Cost",
+            "Rented On", "Due Date ", "No. of Days Late", "Console", "Name of the Game"};
+
+    private ScreenColumns() {
+    }
+
+    /******************************************************************
+     * Returns the list of column names used by a screen. Screens that
+     * share columns return the same array, which must not be changed.
+     *
+     * @param screen the screen to get the columns of
+     * @return the column names of that screen
+     *****************************************************************/
+    static String[] namesOf(ScreenDisplay screen) {
+        switch (screen) {
+            case ReturnedItems:
+                return RETURNED;
+            case EveryThingScreen:
+                return EVERYTHING;
+            case LateRentalScreen:
+                return LATE;
+            default:
+                return CURRENT_RENTALS;
+        }
+    }
+
+    public static int getColumnCount(ScreenDisplay screen) {
+        return namesOf(screen).length;
+    }
+
+    public static String getColumnName(ScreenDisplay screen, int col) {
+        return namesOf(screen)[col];
+    }
+
+    /******************************************************************
+     * Returns what a screen shows in one column for a rental.
+     *
+     * @param screen the screen showing the rental
+     * @param view the sorted list of that screen, which tells the 14
+     * Days Late Screen which names to capitalize
+     * @param unit the rental
+     * @param col the column
+     * @return relevant object to be displayed
+     * @throws RuntimeException if the column is out of range
+     *****************************************************************/
+    public static Object valueAt(ScreenDisplay screen, ScreenView view, Rental unit, int col) {
+        switch (screen) {
+            case ReturnedItems:
+                return returnedValue(unit, col);
+            case EveryThingScreen:
+                return everythingValue(unit, col);
+            case LateRentalScreen:
+                return lateValue(unit, col);
+            default:
+                return currentValue(screen, view, unit, col);
+        }
+    }
+
+    /******************************************************************
+     * Value of a column on the Current Rental Screen, both Within 7
+     * Days Screens and the 14 Days Late Screen.
+     *****************************************************************/
+    private static Object currentValue(ScreenDisplay screen, ScreenView view,
+                                       Rental unit, int col) {
+        switch (col) {
+            case 0:
+                // capitalizes names on the 14 days screen if more than 14 days overdue
+                if (screen == ScreenDisplay.Cap14DaysOverdue && view.group(unit) < 2)
+                    return unit.getDisplayName().toUpperCase();
+
+                // this returns the name of the renter
+                return unit.getDisplayName();
+
+            case 1:
+                // this returns estimated cost of rental
+                return unit.getEstimatedCost();
+
+            case 2:
+                // this returns the date the item was rented on
+                return DateMath.format(unit.rentedOnDay);
+
+            case 3:
+                return dueDate(unit);
+
+            case 4:
+                return consoleOf(unit);
+
+            case 5:
+                return gameOf(unit);
+
+            default:
+                throw new RuntimeException("Col out of range: " + col);
+        }
+    }
+
+    /******************************************************************
+     * Value of a column on the Late Rental Screen.
+     *****************************************************************/
+    private static Object lateValue(Rental unit, int col) {
+        switch (col) {
+            case 0:
+                // this returns the name of the renter
+                return unit.getDisplayName();
+
+            case 1:
+                // this returns estimated cost of rental
+                return unit.getEstimatedCost();
+
+            case 2:
+                // this returns the date the item was rented on
+                return DateMath.format(unit.rentedOnDay);
+
+            case 3:
+                return dueDate(unit);
+
+            case 4:
+                // checks if item has a due date
+                if (unit.dueBackDay == Rental.NO_DATE)
+                    return "-";
+                // this returns the amount of days past due the item has been rented
+                return unit.getDaysLate();
+
+            case 5:
+                return consoleOf(unit);
+
+            case 6:
+                return gameOf(unit);
+
+            default:
+                throw new RuntimeException("Col out of range: " + col);
+        }
+    }
+
+    /******************************************************************
+     * Value of a column on the Everything Screen.
+     *****************************************************************/
+    private static Object everythingValue(Rental unit, int col) {
+        switch (col) {
+            case 0:
+                // this returns the name of the renter
+                return unit.getDisplayName();
+
+            case 1:
+                // this returns the date the item was rented on
+                return DateMath.format(unit.rentedOnDay);
+
+            case 2:
+                return dueDate(unit);
+
+            case 3:
+                // this returns "Not Returned" if item has not been returned
+                if (!unit.isReturned())
+                    return "Not Returned";
+                // this returns the date the item was returned
+                return DateMath.format(unit.returnedDay);
+
+            case 4:
+                // this returns estimated cost of rental
+                if (unit.getEstimatedCost() == 0)
+                    return "Not Returned";
+                return unit.getEstimatedCost();
+
+            case 5:
+                // this returns actual cost of rental
+                if (!unit.isReturned())
+                    return "Not Returned";
+                return unit.getEstimatedCost();
+
+            case 6:
+                return consoleOf(unit);
+
+            case 7:
+                return gameOf(unit);
+
+            default:
+                throw new RuntimeException("Col out of range: " + col);
+        }
+    }
+
+    /******************************************************************
+     * Value of a column on the Returned Screen.
+     *****************************************************************/
+    private static Object returnedValue(Rental unit, int col) {
+        switch (col) {
+            case 0:
+                // this returns the name of the renter
+                return unit.getDisplayName();
+
+            case 1:
+                // this returns the date the item was rented on
+                return DateMath.format(unit.rentedOnDay);
+
+            case 2:
+                // this returns the date the item is due
+                return DateMath.format(unit.dueBackDay);
+
+            case 3:
+                // this returns the date the item was returned
+                return DateMath.format(unit.returnedDay);
+
+            case 4:
+                // this returns estimated cost of rental
+                return unit.getEstimatedCost();
+
+            case 5:
+                // this returns actual cost of rental
+                return unit.getRealCost();
+
+            default:
+                throw new RuntimeException("Col out of range: " + col);
+        }
+    }
+
+    /** the due date, or "-" if there is none */
+    private static Object dueDate(Rental unit) {
+        if (unit.dueBackDay == Rental.NO_DATE)
+            return "-";
+        return DateMath.format(unit.dueBackDay);
+    }
+
+    /** the console rented, "" for a game rented without one */
+    private static Object consoleOf(Rental unit) {
+        if (unit instanceof Console)
+            return ((Console) unit).getConsoleType();
+        if (((Game) unit).getConsole() != null)
+            return ((Game) unit).getConsole();
+        return "";
+    }
+
+    /** the name of the game, "" for a console */
+    private static Object gameOf(Rental unit) {
+        if (unit instanceof Game)
+            return ((Game) unit).getNameGame();
+        return "";
+    }
+}
@@ -0,0 +1,242 @@
+package project2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+/*************************************************************************
+ * The rows of a RentalStore shown on one screen, in display order,
+ * kept in a file of ints that is memory mapped. Built with the same
+ * filter and sort keys as ScreenView.rebuild, so it holds the rentals
+ * a ListModel would show, in the same order.
+ *
+ * Rows are sorted RUN_ROWS at a time in memory; when there are more,
+ * each sorted run is written to a file of its own and the runs are
+ * merged, so building the index of any store takes bounded memory.
+ ************************************************************************/
+
+public class ScreenIndex implements Closeable {
+
+    /** most rows sorted in memory at once */
+    public static final int RUN_ROWS = 1 << 20;
+
+    /** rows mapped by each buffer, so every buffer stays below 2 GB */
+    private static final int SEGMENT_ROWS = 1 << 28;
+
+    /** the file holding the rows */
+    private final Path file;
+
+    /** number of rows on the screen */
+    private final int size;
+
+    /** the file mapped SEGMENT_ROWS rows at a time */
+    private final ByteBuffer[] segments;
+
+    private ScreenIndex(Path file, int size) throws IOException {
+        this.file = file;
+        this.size = size;
+
+        segments = new ByteBuffer[(size + SEGMENT_ROWS - 1) / SEGMENT_ROWS];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i * SEGMENT_ROWS;
+                long rows = Math.min(SEGMENT_ROWS, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        first * Integer.BYTES, rows * Integer.BYTES);
+            }
+        }
+    }
+
+    /******************************************************************
+     * Picks and sorts the rows of a store shown on a screen and writes
+     * them to an index file.
+     *
+     * @param view the screen, which takes today's date first if it
+     * depends on it
+     * @param store the rentals to pick from
+     * @param file the index file to write; replaced if it exists, and
+     * its sorted runs are written next to it
+     * @return the open index
+     * @throws IOException if a file cannot be written
+     *****************************************************************/
+    public static ScreenIndex build(ScreenView view, RentalStore store, Path file)
+            throws IOException {
+        view.beforeRebuild();
+        int[] ranks = store.renterRanks();
+        int capacity = Math.min(RUN_ROWS, Math.max(store.size(), 1));
+        long[] keys = new long[capacity];
+        int[] rows = new int[capacity];
+        ArrayList<Path> runs = new ArrayList<>();
+        int count = 0;
+        int total = 0;
+
+        try {
+            for (int row = 0; row < store.size(); row++) {
+                byte kind = store.getKind(row);
+                int rentedOn = store.getRentedOn(row);
+                int dueBack = store.getDueBack(row);
+                if (!view.accepts(kind, rentedOn, dueBack, store.getReturned(row)))
+                    continue;
+
+                // a run is only written once another row does not fit
+                if (count == capacity) {
+                    runs.add(writeRun(file, runs.size(), keys, rows, count));
+                    count = 0;
+                }
+                keys[count] = view.sortKey(kind, rentedOn, dueBack,
+                        ranks[store.getRenterId(row) + 1]);
+                rows[count] = row;
+                count++;
+                total++;
+            }
+
+            // a screen that fits in one run needs no merge
+            if (runs.isEmpty()) {
+                RentalColumns.sortStable(keys, rows, count);
+                try (DataOutputStream out = output(file)) {
+                    for (int i = 0; i < count; i++)
+                        out.writeInt(rows[i]);
+                }
+            }
+            else {
+                if (count > 0)
+                    runs.add(writeRun(file, runs.size(), keys, rows, count));
+                merge(runs, file);
+            }
+        } finally {
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        }
+        return new ScreenIndex(file, total);
+    }
+
+    /******************************************************************
+     * Returns the number of rows on the screen.
+     *
+     * @return the number of rows in the index
+     *****************************************************************/
+    public int size() {
+        return size;
+    }
+
+    /******************************************************************
+     * Returns the store row shown at a position of the screen.
+     *
+     * @param position the position on the screen
+     * @return the row of the rental in the store
+     *****************************************************************/
+    public int rowAt(int position) {
+        if (position < 0 || position >= size)
+            throw new IndexOutOfBoundsException("Row " + position + " of " + size);
+        return segments[position / SEGMENT_ROWS]
+                .getInt((position % SEGMENT_ROWS) * Integer.BYTES);
+    }
+
+    /******************************************************************
+     * Deletes the index file. Rows must not be read afterwards.
+     *
+     * @throws IOException if the file cannot be deleted
+     *****************************************************************/
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /******************************************************************
+     * Sorts one run of rows and writes it next to the index file, each
+     * row after its sort key.
+     *
+     * @return the file of the run
+     *****************************************************************/
+    private static Path writeRun(Path file, int number, long[] keys, int[] rows,
+                                 int count) throws IOException {
+        RentalColumns.sortStable(keys, rows, count);
+        Path run = file.resolveSibling(file.getFileName() + ".run" + number);
+        try (DataOutputStream out = output(run)) {
+            for (int i = 0; i < count; i++) {
+                out.writeLong(keys[i]);
+                out.writeInt(rows[i]);
+            }
+        }
+        return run;
+    }
+
+    /******************************************************************
+     * Merges sorted runs into the index file. Runs hold rows in store
+     * order, so rows with equal keys are taken by row number to keep
+     * the merge stable.
+     *****************************************************************/
+    private static void merge(ArrayList<Path> runs, Path file) throws IOException {
+        PriorityQueue<Run> heads = new PriorityQueue<>((r1, r2) -> {
+            int result = Long.compareUnsigned(r1.key, r2.key);
+            return result != 0 ? result : Integer.compare(r1.row, r2.row);
+        });
+        try (DataOutputStream out = output(file)) {
+            for (Path path : runs) {
+                Run run = new Run(path);
+                if (run.next())
+                    heads.add(run);
+            }
+            while (!heads.isEmpty()) {
+                Run run = heads.poll();
+                out.writeInt(run.row);
+                if (run.next())
+                    heads.add(run);
+            }
+        } finally {
+            for (Run run : heads)
+                run.in.close();
+        }
+    }
+
+    private static DataOutputStream output(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file), 1 << 16));
+    }
+
+    /*********************************************************************
+     * One sorted run being merged, positioned at its next row.
+     *********************************************************************/
+    private static class Run {
+
+        /** the run file */
+        private final DataInputStream in;
+
+        /** number of rows left to read */
+        private long left;
+
+        /** sort key of the current row */
+        private long key;
+
+        /** the current row */
+        private int row;
+
+        Run(Path path) throws IOException {
+            left = Files.size(path) / (Long.BYTES + Integer.BYTES);
+            in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(path), 1 << 16));
+        }
+
+        /** moves to the next row, closing the run after its last one */
+        boolean next() throws IOException {
+            if (left == 0) {
+                in.close();
+                return false;
+            }
+            left--;
+            key = in.readLong();
+            row = in.readInt();
+            return true;
+        }
+    }
+}
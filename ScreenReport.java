@@ -0,0 +1,219 @@
+package project2;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/*************************************************************************
+ * Prints one screen of a database file as CSV or JSON, for reports run
+ * from the command line, such as every night:
+ *
+ *     java project2.ScreenReport [--json] [--out file] database screen
+ *
+ * The screen is a ScreenDisplay name, such as LateRentalScreen, and has
+ * the same rows in the same order and the same columns as in the GUI.
+ * The journal of the database is replayed but not changed. Files ending
+ * in .txt are read as text files. Nothing here uses Swing or AWT.
+ ************************************************************************/
+
+public class ScreenReport {
+
+    /** the formats a report can be written in */
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    /** the screen being reported */
+    private final ScreenDisplay screen;
+
+    /** the sorted list of that screen */
+    private final ScreenView view;
+
+    public ScreenReport(ScreenDisplay screen) {
+        this.screen = screen;
+        this.view = ScreenView.forDisplay(screen);
+    }
+
+    /******************************************************************
+     * Reads the rentals of a database file with its journal replayed,
+     * or of a text file.
+     *
+     * @param filename the file to read
+     * @return the rentals in the file
+     * @throws IOException for various errors loading file
+     * @throws ClassNotFoundException if an old serialized file holds
+     * an unknown class
+     *****************************************************************/
+    public static ArrayList<Rental> load(String filename)
+            throws IOException, ClassNotFoundException {
+        if (filename.endsWith(".txt"))
+            return TextImporter.read(Paths.get(filename), ProgressListener.NONE);
+
+        ArrayList<Rental> rentals = RentalSnapshot.readFile(filename, ProgressListener.NONE);
+        RentalJournal.replay(RentalJournal.fileFor(filename), rentals);
+        return rentals;
+    }
+
+    /******************************************************************
+     * Picks and sorts the rentals shown on the screen.
+     *
+     * @param rentals every rental in the store
+     * @return the rows of the screen, in display order
+     *****************************************************************/
+    public List<Rental> rows(List<Rental> rentals) {
+        for (int i = 0; i < rentals.size(); i++)
+            rentals.get(i).listIndex = i;
+        view.rebuild(rentals, RentalColumns.of(rentals));
+        return view.getRows();
+    }
+
+    /******************************************************************
+     * Writes rows of the screen, one line per rental. CSV starts with
+     * a line of column names; JSON is an array holding one object per
+     * rental, keyed by column name. Costs and days are written as
+     * numbers in JSON.
+     *
+     * @param rows the rows to write, from rows
+     * @param format the format to write in
+     * @param out where to write; not closed
+     * @throws IOException if out cannot be written
+     *****************************************************************/
+    public void write(List<Rental> rows, Format format, Writer out) throws IOException {
+        String[] names = ScreenColumns.namesOf(screen);
+        String[] keys = new String[names.length];
+        for (int col = 0; col < names.length; col++)
+            keys[col] = names[col].trim();
+
+        if (format == Format.CSV) {
+            for (int col = 0; col < keys.length; col++) {
+                if (col > 0)
+                    out.write(',');
+                out.write(csv(keys[col]));
+            }
+            out.write('\n');
+        }
+        else {
+            out.write("[");
+        }
+
+        for (int row = 0; row < rows.size(); row++) {
+            Rental unit = rows.get(row);
+            if (format == Format.JSON)
+                out.write(row == 0 ? "\n{" : ",\n{");
+            for (int col = 0; col < keys.length; col++) {
+                Object value = ScreenColumns.valueAt(screen, view, unit, col);
+                if (format == Format.CSV) {
+                    if (col > 0)
+                        out.write(',');
+                    out.write(csv(value == null ? "" : value.toString()));
+                }
+                else {
+                    if (col > 0)
+                        out.write(',');
+                    out.write(json(keys[col]));
+                    out.write(':');
+                    out.write(jsonValue(value));
+                }
+            }
+            out.write(format == Format.CSV ? "\n" : "}");
+        }
+
+        if (format == Format.JSON)
+            out.write("\n]\n");
+    }
+
+    /******************************************************************
+     * Writes a report of one screen of a file to standard output or
+     * to a file.
+     *
+     * @param args the options, the file and the screen, see above
+     *****************************************************************/
+    public static void main(String[] args) {
+        Format format = Format.CSV;
+        String outFile = null;
+        ArrayList<String> operands = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--json"))
+                format = Format.JSON;
+            else if (args[i].equals("--csv"))
+                format = Format.CSV;
+            else if (args[i].equals("--out") && i + 1 < args.length)
+                outFile = args[++i];
+            else
+                operands.add(args[i]);
+        }
+
+        ScreenDisplay screen = operands.size() == 2 ? screenNamed(operands.get(1)) : null;
+        if (screen == null) {
+            System.err.println("Usage: java project2.ScreenReport [--csv | --json] "
+                    + "[--out file] database screen");
+            System.err.print("Screens:");
+            for (ScreenDisplay each : ScreenDisplay.values())
+                System.err.print(" " + each);
+            System.err.println();
+            System.exit(2);
+        }
+
+        ScreenReport report = new ScreenReport(screen);
+        try {
+            List<Rental> rows = report.rows(load(operands.get(0)));
+            OutputStream os = outFile == null ? System.out : new FileOutputStream(outFile);
+            try (Writer out = new BufferedWriter(
+                    new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16)) {
+                report.write(rows, format, out);
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException ex) {
+            System.err.println("Loading problem: " + operands.get(0) + ": " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** the screen of a name in any case, null if there is none */
+    private static ScreenDisplay screenNamed(String name) {
+        for (ScreenDisplay screen : ScreenDisplay.values())
+            if (screen.name().equalsIgnoreCase(name))
+                return screen;
+        return null;
+    }
+
+    /** a CSV field, quoted if it has to be */
+    private static String csv(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /** a JSON value, numbers as numbers and everything else as strings */
+    private static String jsonValue(Object value) {
+        if (value == null)
+            return "null";
+        if (value instanceof Integer
+                || (value instanceof Double && Double.isFinite((Double) value)))
+            return value.toString();
+        return json(value.toString());
+    }
+
+    /** a JSON string */
+    private static String json(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
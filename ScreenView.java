@@ -0,0 +1,465 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*************************************************************************
+ * The sorted list of rentals shown on one screen. Each screen decides
+ * which rentals it shows, which group a rental is sorted into and how
+ * rentals are ordered inside a group. The list is kept sorted so that
+ * adding or removing one rental is a binary search instead of
+ * re-filtering and re-sorting every rental.
+ ************************************************************************/
+
+public abstract class ScreenView {
+
+    /** the rentals shown on this screen, in display order */
+    protected final ArrayList<Rental> rows = new ArrayList<>();
+
+    /** largest order key, keeps the key inside its bits of the sort key */
+    private static final int MAX_ORDER_KEY = (1 << 28) - 1;
+
+    /******************************************************************
+     * Decides if a rental belongs on this screen, from the values
+     * stored for it in a RentalColumns row.
+     *
+     * @param kind RentalColumns.GAME or RentalColumns.CONSOLE
+     * @param rentedOn the epoch day it was rented on
+     * @param dueBack the epoch day it is due back
+     * @param returned the epoch day it was returned, or Rental.NO_DATE
+     * @return true if the rental is shown on this screen
+     *****************************************************************/
+    protected abstract boolean accepts(byte kind, int rentedOn, int dueBack, int returned);
+
+    /******************************************************************
+     * Returns the group a rental is sorted into. Groups are shown in
+     * ascending order and must be below 16. Does not get the return
+     * date, so that a rental can still be found after it has been
+     * returned.
+     *
+     * @param kind RentalColumns.GAME or RentalColumns.CONSOLE
+     * @param rentedOn the epoch day it was rented on
+     * @param dueBack the epoch day it is due back
+     * @return the group number of the rental
+     *****************************************************************/
+    protected int group(byte kind, int rentedOn, int dueBack) {
+        return 0;
+    }
+
+    /******************************************************************
+     * Returns a number rentals in the same group are sorted by before
+     * they are sorted by name.
+     *
+     * @param dueBack the epoch day the rental is due back
+     * @return a number from 0 up
+     *****************************************************************/
+    protected int orderKey(int dueBack) {
+        return 0;
+    }
+
+    /******************************************************************
+     * Returns the only rows that can be on this screen, if an index
+     * can tell, so a rebuild does not have to look at every row.
+     *
+     * @param columns the rentals stored by column
+     * @return the rows to check with accepts in ascending order, or
+     * null to check every row
+     *****************************************************************/
+    protected int[] candidates(RentalColumns columns) {
+        return null;
+    }
+
+    /******************************************************************
+     * Tells if candidates narrows the rows down with an index, without
+     * running the query.
+     *
+     * @return true if candidates does not return null
+     *****************************************************************/
+    protected boolean usesIndex() {
+        return false;
+    }
+
+    /******************************************************************
+     * Called before the view is rebuilt. Screens that depend on the
+     * current date take the date here.
+     *****************************************************************/
+    protected void beforeRebuild() {
+    }
+
+    /******************************************************************
+     * Tells if the screen still shows the right rentals. Screens that
+     * depend on the current date go out of date when the day changes.
+     *
+     * @return false if the view needs to be rebuilt
+     *****************************************************************/
+    public boolean isCurrent() {
+        return true;
+    }
+
+    /******************************************************************
+     * Decides if a rental belongs on this screen.
+     *
+     * @param unit the rental to check
+     * @return true if the rental is shown on this screen
+     *****************************************************************/
+    public final boolean accepts(Rental unit) {
+        return accepts(kindOf(unit), unit.rentedOnDay, unit.dueBackDay, unit.returnedDay);
+    }
+
+    /******************************************************************
+     * Returns the group a rental is sorted into.
+     *
+     * @param unit the rental to check
+     * @return the group number of the rental
+     *****************************************************************/
+    public final int group(Rental unit) {
+        return group(kindOf(unit), unit.rentedOnDay, unit.dueBackDay);
+    }
+
+    /******************************************************************
+     * Orders two rentals by group, then by order key, then by the
+     * display name of the renter, which each rental keeps so nothing
+     * is allocated while sorting, then by their position in the list of all rentals so
+     * that a view kept up to date one rental at a time matches a
+     * rebuilt one.
+     *
+     * @param n1 the first rental
+     * @param n2 the second rental
+     * @return a negative, zero or positive int like a Comparator
+     *****************************************************************/
+    public final int compare(Rental n1, Rental n2) {
+        int result = Integer.compare(group(n1), group(n2));
+        if (result == 0)
+            result = Integer.compare(clampedOrderKey(n1.dueBackDay),
+                    clampedOrderKey(n2.dueBackDay));
+        if (result == 0)
+            result = compareNames(n1.getDisplayName(), n2.getDisplayName());
+        if (result == 0)
+            result = Integer.compare(n1.listIndex, n2.listIndex);
+        return result;
+    }
+
+    /******************************************************************
+     * Returns the rentals shown on this screen, in display order.
+     *
+     * @return the list backing this screen
+     *****************************************************************/
+    public ArrayList<Rental> getRows() {
+        return rows;
+    }
+
+    /******************************************************************
+     * Throws away the current list and fills it again. The rentals
+     * are picked by a loop over the columns, then put in order with a
+     * radix sort on a key packing the group, the order key and the
+     * rank of the renter name, so no Rental is looked at until the
+     * rows are known.
+     *
+     * @param allRentals every rental in the store
+     * @param columns the same rentals stored by column, row i holding
+     * allRentals.get(i)
+     *****************************************************************/
+    public void rebuild(List<Rental> allRentals, RentalColumns columns) {
+        beforeRebuild();
+        int size = columns.size();
+        byte[] kind = columns.kind;
+        int[] rentedOn = columns.rentedOn;
+        int[] dueBack = columns.dueBack;
+        int[] returned = columns.returned;
+        int[] renter = columns.renter;
+        int[] ranks = columns.renterRanks();
+
+        // checks every row unless an index narrows them down
+        int[] candidates = candidates(columns);
+        int checks = candidates == null ? size : candidates.length;
+
+        int[] selected = new int[checks];
+        long[] keys = new long[checks];
+        int count = 0;
+        for (int i = 0; i < checks; i++) {
+            int row = candidates == null ? i : candidates[i];
+            if (accepts(kind[row], rentedOn[row], dueBack[row], returned[row])) {
+                selected[count] = row;
+                keys[count] = sortKey(kind[row], rentedOn[row], dueBack[row],
+                        ranks[renter[row] + 1]);
+                count++;
+            }
+        }
+        // stable, rows with equal keys stay in list order
+        RentalColumns.sortStable(keys, selected, count);
+        fill(allRentals, selected, count);
+    }
+
+    /******************************************************************
+     * Packs everything a row is sorted by into one key. Keys compare
+     * as unsigned numbers in the same order as compare.
+     *
+     * @param kind RentalColumns.GAME or RentalColumns.CONSOLE
+     * @param rentedOn the epoch day it was rented on
+     * @param dueBack the epoch day it is due back
+     * @param renterRank the rank of the renter name, see
+     * RentalColumns.renterRanks
+     * @return the sort key of the row
+     *****************************************************************/
+    final long sortKey(byte kind, int rentedOn, int dueBack, int renterRank) {
+        return (long) group(kind, rentedOn, dueBack) << 60
+                | (long) clampedOrderKey(dueBack) << 32
+                | renterRank;
+    }
+
+    /******************************************************************
+     * Replaces the rows of this screen.
+     *
+     * @param allRentals every rental in the store
+     * @param selected the rows to show, in display order
+     * @param count how many entries of selected to use
+     *****************************************************************/
+    void fill(List<Rental> allRentals, int[] selected, int count) {
+        rows.clear();
+        rows.ensureCapacity(count);
+        for (int i = 0; i < count; i++)
+            rows.add(allRentals.get(selected[i]));
+        assert isSorted() : "rebuilt rows are not in the order of compare";
+    }
+
+    /******************************************************************
+     * Checks that every row sorts after the one before it, which
+     * insert and remove count on. Names shown the same, such as "Bob"
+     * and "BOB", are where a rebuild is most likely to go wrong.
+     *
+     * @return true if the rows are in the order of compare
+     *****************************************************************/
+    boolean isSorted() {
+        for (int i = 1; i < rows.size(); i++)
+            if (compare(rows.get(i - 1), rows.get(i)) >= 0)
+                return false;
+        return true;
+    }
+
+    /******************************************************************
+     * Adds a rental in its sorted position if it belongs on this
+     * screen. Rentals that compare equal keep the order they were
+     * added in.
+     *
+     * @param unit the rental to add
+     * @return the row the rental was added at, -1 if not added
+     *****************************************************************/
+    public int insert(Rental unit) {
+        if (!accepts(unit))
+            return -1;
+
+        // finds the first row that sorts after the new rental
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(rows.get(mid), unit) <= 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        rows.add(low, unit);
+        return low;
+    }
+
+    /******************************************************************
+     * Removes a rental from this screen if it is shown.
+     *
+     * @param unit the rental to remove
+     * @return the row the rental was removed from, -1 if not shown
+     *****************************************************************/
+    public int remove(Rental unit) {
+        int row = indexOf(unit);
+        if (row != -1)
+            rows.remove(row);
+        return row;
+    }
+
+    /******************************************************************
+     * Finds the row of a rental on this screen. The rental must sort
+     * the same way it did when it was added, so names and dates have
+     * to be changed through ListModel while the rental is shown.
+     *
+     * @param unit the rental to look for
+     * @return the row of the rental, -1 if not shown
+     *****************************************************************/
+    public int indexOf(Rental unit) {
+        // finds the first row that does not sort before the rental
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(rows.get(mid), unit) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        // several rentals can compare equal, look for this exact one
+        for (int i = low; i < rows.size() && compare(rows.get(i), unit) == 0; i++)
+            if (rows.get(i) == unit)
+                return i;
+        return -1;
+    }
+
+    private int clampedOrderKey(int dueBack) {
+        return Math.min(Math.max(orderKey(dueBack), 0), MAX_ORDER_KEY);
+    }
+
+    private static int compareNames(String name1, String name2) {
+        // no name sorts first, as in RentalColumns.renterRanks
+        if (name1 == null || name2 == null)
+            return name1 == null ? (name2 == null ? 0 : -1) : 1;
+        return name1.compareTo(name2);
+    }
+
+    private static byte kindOf(Rental unit) {
+        return unit instanceof Game ? RentalColumns.GAME : RentalColumns.CONSOLE;
+    }
+
+    /******************************************************************
+     * Creates the view for one of the screens of the GUI.
+     *
+     * @param display the screen to create a view for
+     * @return a new, empty view for that screen
+     * @throws RuntimeException when display does not match any
+     * expected cases
+     *****************************************************************/
+    public static ScreenView forDisplay(ScreenDisplay display) {
+        switch (display) {
+            case CurrentRentalStatus:
+                // rentals that have not been returned, by name of renter
+                return new ScreenView() {
+                    protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+                        return returned == Rental.NO_DATE;
+                    }
+                };
+
+            case ReturnedItems:
+                // rentals that have been returned, by name of renter
+                return new ScreenView() {
+                    protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+                        return returned != Rental.NO_DATE;
+                    }
+                };
+
+            case DueWithInWeek:
+                // rentals of a week or less, by name of renter
+                return new ScreenView() {
+                    protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+                        return returned == Rental.NO_DATE
+                                && DateMath.daysBetween(rentedOn, dueBack) <= 7;
+                    }
+                };
+
+            case DueWithinWeekGamesFirst:
+                // rentals of a week or less, games before consoles
+                return new ScreenView() {
+                    protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+                        return returned == Rental.NO_DATE
+                                && DateMath.daysBetween(rentedOn, dueBack) <= 7;
+                    }
+
+                    protected int group(byte kind, int rentedOn, int dueBack) {
+                        return kind == RentalColumns.GAME ? 0 : 1;
+                    }
+                };
+
+            case Cap14DaysOverdue:
+                // rentals of more than a week; 14 days or more first,
+                // consoles before games in both halves
+                return new ScreenView() {
+                    protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+                        return returned == Rental.NO_DATE
+                                && DateMath.daysBetween(rentedOn, dueBack) > 7;
+                    }
+
+                    protected int group(byte kind, int rentedOn, int dueBack) {
+                        int group = kind == RentalColumns.CONSOLE ? 0 : 1;
+                        if (DateMath.daysBetween(rentedOn, dueBack) < 14)
+                            group += 2;
+                        return group;
+                    }
+                };
+
+            case EveryThingScreen:
+                // every rental, by name of renter
+                return new ScreenView() {
+                    protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+                        return true;
+                    }
+                };
+
+            case LateRentalScreen:
+                return new LateView();
+
+            default:
+                throw new RuntimeException("upDate is in undefined state: " + display);
+        }
+    }
+
+    /*********************************************************************
+     * Rentals past their due date, games before consoles, least late
+     * first. Lateness is measured against the moment the view was
+     * built so the order stays consistent until the day changes.
+     *********************************************************************/
+    private static class LateView extends ScreenView {
+
+        /** the moment lateness is measured against */
+        private long now = System.currentTimeMillis();
+
+        /** due dates before this epoch day are late at now */
+        private int lateBase = DateMath.daysLateBase(now);
+
+        @Override
+        protected boolean accepts(byte kind, int rentedOn, int dueBack, int returned) {
+            return returned == Rental.NO_DATE && dueBack < lateBase;
+        }
+
+        @Override
+        protected int group(byte kind, int rentedOn, int dueBack) {
+            return kind == RentalColumns.GAME ? 0 : 1;
+        }
+
+        @Override
+        protected int orderKey(int dueBack) {
+            // sorts rentals by how many days late they are, then by name
+            return lateBase - dueBack;
+        }
+
+        @Override
+        protected int[] candidates(RentalColumns columns) {
+            // only rentals that are not returned and due before lateBase
+            DueDateIndex index = columns.getDueIndex();
+
+            // each due day has an order key of its own, so the stable sort
+            // breaks ties by row as long as every day is in row order; only
+            // the days late enough to be clamped share a key and are merged
+            int lastClamped = lateBase - MAX_ORDER_KEY;
+            int[] clamped = index.dueBefore(lastClamped + 1);
+            int[] byDay = index.dueBetweenByDay(lastClamped + 1, lateBase - 1);
+            if (clamped.length == 0)
+                return byDay;
+            int[] rows = Arrays.copyOf(clamped, clamped.length + byDay.length);
+            System.arraycopy(byDay, 0, rows, clamped.length, byDay.length);
+            return rows;
+        }
+
+        @Override
+        protected boolean usesIndex() {
+            return true;
+        }
+
+        @Override
+        public boolean isCurrent() {
+            return DateMath.today(now) == DateMath.today(System.currentTimeMillis());
+        }
+
+        @Override
+        protected void beforeRebuild() {
+            now = System.currentTimeMillis();
+            lateBase = DateMath.daysLateBase(now);
+        }
+    }
+}
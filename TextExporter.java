@@ -0,0 +1,164 @@
+package project2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+
+/*************************************************************************
+ * Writes rentals in the text format read by TextImporter. Records are
+ * formatted into a small text buffer and encoded into one large byte
+ * buffer that is written to the file whenever it fills up, so memory
+ * use stays the same however many rentals are written.
+ ************************************************************************/
+
+public class TextExporter implements Closeable {
+
+    /** size of the buffer written to the file at a time */
+    public static final int BUFFER_BYTES = 1 << 20;
+
+    /** text is encoded once this many characters are waiting */
+    private static final int FLUSH_CHARS = 1 << 16;
+
+    /** line break written after every line */
+    private static final String NEWLINE = System.lineSeparator();
+
+    /** the file being written */
+    private final FileChannel channel;
+
+    /** turns text into bytes in the default character set */
+    private final CharsetEncoder encoder;
+
+    /** records formatted but not yet encoded */
+    private final StringBuilder text = new StringBuilder(FLUSH_CHARS + 256);
+
+    /** bytes encoded but not yet written */
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /******************************************************************
+     * Creates the file, replacing anything already in it.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be created
+     *****************************************************************/
+    public TextExporter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        // unmappable characters become '?', as they did with FileWriter
+        encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /******************************************************************
+     * Writes a whole text file: the number of rentals, then every
+     * rental. The collection must not change while it is written.
+     *
+     * @param rentals the rentals to write
+     * @param file the file to write
+     * @param progress told how many rentals have been written
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public static void write(Collection<? extends Rental> rentals, Path file,
+                             ProgressListener progress) throws IOException {
+        try (TextExporter out = new TextExporter(file)) {
+            out.writeCount(rentals.size());
+            Iterator<? extends Rental> units = ProgressListener.track(
+                    rentals.iterator(), rentals.size(), progress);
+            while (units.hasNext())
+                out.write(units.next());
+        }
+    }
+
+    /******************************************************************
+     * Writes the line that holds the number of rentals in the file.
+     *
+     * @param count the number of rentals that follow
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public void writeCount(int count) throws IOException {
+        text.append(count).append(NEWLINE);
+    }
+
+    /******************************************************************
+     * Writes one rental.
+     *
+     * @param unit the rental to write
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    public void write(Rental unit) throws IOException {
+        line(unit.getClass().getName());
+        line("Name is ", unit.getNameOfRenter());
+        line("Rented on ", DateMath.format(unit.getRentedOnDay()));
+        line("DueDate ", DateMath.format(unit.getDueBackDay()));
+        line(unit.isReturned() ? DateMath.format(unit.getReturnedDay()) : "Not returned!");
+
+        if (unit instanceof Game) {
+            Game game = (Game) unit;
+            line(game.getNameGame());
+            line(game.getConsole() == null ? "No Console" : game.getConsole().name());
+        }
+        else {
+            line(String.valueOf(((Console) unit).getConsoleType()));
+        }
+
+        if (text.length() >= FLUSH_CHARS)
+            encode(false);
+    }
+
+    /******************************************************************
+     * Writes everything still buffered and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     *****************************************************************/
+    @Override
+    public void close() throws IOException {
+        try {
+            encode(true);
+            encoder.flush(bytes);
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void line(String value) {
+        text.append(value).append(NEWLINE);
+    }
+
+    private void line(String label, String value) {
+        text.append(label).append(value).append(NEWLINE);
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow())
+                drain();
+            else if (result.isError())
+                throw new CharacterCodingException();
+            else
+                break;
+        }
+        text.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        bytes.clear();
+    }
+}
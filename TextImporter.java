@@ -0,0 +1,298 @@
+package project2;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*************************************************************************
+ * Reads the text format written by ListModel.saveAsText in parallel.
+ * The file is cut into blocks that each start at a class name header
+ * line, the blocks are read and parsed on the fork-join pool, and the
+ * rentals of all blocks are put back together in file order.
+ ************************************************************************/
+
+public final class TextImporter {
+
+    /** blocks are not made smaller than this many bytes */
+    public static final int MIN_BLOCK_BYTES = 1 << 20;
+
+    /** blocks are not made larger than this many bytes */
+    public static final int MAX_BLOCK_BYTES = 1 << 26;
+
+    /** bytes read at a time while looking for a block boundary */
+    private static final int SCAN_BYTES = 1 << 12;
+
+    /** start of the line after a header, holding the renter name */
+    private static final String NAME_PREFIX = "Name is ";
+
+    /** every console type, for looking up a console by name */
+    private static final ConsoleTypes[] CONSOLES = ConsoleTypes.values();
+
+    private TextImporter() {
+    }
+
+    /******************************************************************
+     * Reads every rental in a text file.
+     *
+     * @param file the file to read
+     * @param progress told how many blocks have been parsed
+     * @return the rentals in the file, in file order
+     * @throws IOException if the file cannot be read, is not in the
+     * text format, or the listener was cancelled
+     *****************************************************************/
+    public static ArrayList<Rental> read(Path file, ProgressListener progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = blockBounds(channel);
+            int blocks = bounds.length - 1;
+            AtomicInteger parsed = new AtomicInteger();
+
+            List<List<Rental>> results;
+            try {
+                // ordered collect keeps the blocks in file order
+                results = IntStream.range(0, blocks).parallel()
+                        .mapToObj(i -> {
+                            if (progress.isCancelled())
+                                throw new UncheckedIOException(new InterruptedIOException("Cancelled"));
+                            List<Rental> rentals = parseBlock(channel, bounds[i], bounds[i + 1]);
+                            progress.progress(parsed.incrementAndGet(), blocks);
+                            return rentals;
+                        })
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+
+            int total = 0;
+            for (List<Rental> block : results)
+                total += block.size();
+            ArrayList<Rental> rentals = new ArrayList<>(total);
+            for (List<Rental> block : results)
+                rentals.addAll(block);
+            return rentals;
+        }
+    }
+
+    /******************************************************************
+     * Cuts a file into blocks of about the same size. Every block but
+     * the first starts at a class name header line, so no record is
+     * split between two blocks.
+     *
+     * @param channel the file
+     * @return the offsets where blocks start, followed by the file size
+     * @throws IOException if the file cannot be read
+     *****************************************************************/
+    private static long[] blockBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int workers = Runtime.getRuntime().availableProcessors();
+        long blockSize = Math.max(MIN_BLOCK_BYTES, size / (workers * 4L));
+        blockSize = Math.min(blockSize, MAX_BLOCK_BYTES);
+
+        ArrayList<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long next = blockSize;
+        while (next < size) {
+            long start = nextHeader(channel, next);
+            if (start >= size)
+                break;
+            bounds.add(start);
+            next = start + blockSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = bounds.get(i);
+        return result;
+    }
+
+    /******************************************************************
+     * Finds the first class name header line that starts at or after
+     * an offset. A header must be followed by a name line, so a game
+     * title that looks like a class name is not taken for one.
+     *
+     * @param channel the file
+     * @param from the offset to search from
+     * @return the offset of the header line, or the file size if there
+     * is none
+     * @throws IOException if the file cannot be read
+     *****************************************************************/
+    private static long nextHeader(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        StringBuilder line = new StringBuilder();
+        long lineStart = -1;
+        long header = -1;
+
+        // backs up one byte so a line starting exactly at from is found
+        long position = from - 1;
+        while (position < size) {
+            buffer.clear();
+            int count = channel.read(buffer, position);
+            if (count <= 0)
+                break;
+            for (int i = 0; i < count; i++) {
+                char c = (char) (buffer.get(i) & 0xff);
+                if (c == '\n') {
+                    if (header >= 0 && startsWith(line, NAME_PREFIX))
+                        return header;
+                    header = lineStart >= from && isHeader(line) ? lineStart : -1;
+                    line.setLength(0);
+                    lineStart = position + i + 1;
+                }
+                else if (lineStart >= 0 && c != '\r') {
+                    line.append(c);
+                }
+            }
+            position += count;
+        }
+        return size;
+    }
+
+    /******************************************************************
+     * Tells if a line is a class name header, such as project2.Game.
+     *
+     * @param line the line to check, without its line break
+     * @return true if a new record starts with this line
+     *****************************************************************/
+    private static boolean isHeader(CharSequence line) {
+        String text = line.toString();
+        if (!text.endsWith(".Game") && !text.endsWith(".Console"))
+            return false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.')
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(StringBuilder line, String prefix) {
+        if (line.length() < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++)
+            if (line.charAt(i) != prefix.charAt(i))
+                return false;
+        return true;
+    }
+
+    /******************************************************************
+     * Reads and parses one block of the file.
+     *
+     * @param channel the file
+     * @param start offset of the first byte of the block
+     * @param end offset just past the last byte of the block
+     * @return the rentals in the block, in file order
+     * @throws UncheckedIOException if the block cannot be read or is
+     * not in the text format
+     *****************************************************************/
+    private static List<Rental> parseBlock(FileChannel channel, long start, long end) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0)
+                    break;
+            }
+            buffer.flip();
+
+            // saveAsText writes with the default character set
+            String text = Charset.defaultCharset().decode(buffer).toString();
+            return parseRecords(text.split("\r?\n"));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /******************************************************************
+     * Parses the records in a block. Lines that are not part of a
+     * record, such as the count on the first line, are skipped.
+     *
+     * @param lines the lines of the block
+     * @return the rentals in the block
+     * @throws IOException if a record is not in the text format
+     *****************************************************************/
+    private static List<Rental> parseRecords(String[] lines) throws IOException {
+        ArrayList<Rental> rentals = new ArrayList<>();
+        int i = 0;
+        while (i < lines.length) {
+            String header = lines[i++];
+            boolean game = header.contains(".Game");
+            if (!game && !header.contains(".Console"))
+                continue;
+            if (i + (game ? 6 : 5) > lines.length)
+                throw new IOException("Record cut off after " + header);
+
+            // drops "Name is ", "Rented on " and "DueDate "
+            String name = lines[i++].substring(NAME_PREFIX.length());
+            int rentDay = parseDate(lines[i++].substring(10));
+            int dueDay = parseDate(lines[i++].substring(8));
+            String returned = lines[i++];
+            int returnedDay = returned.equals("Not returned!")
+                    ? Rental.NO_DATE : parseDate(returned);
+
+            if (game) {
+                String title = lines[i++];
+                ConsoleTypes console = parseConsole(lines[i++]);
+                rentals.add(new Game(name, rentDay, dueDay, returnedDay, title, console));
+            }
+            else {
+                ConsoleTypes console = parseConsole(lines[i++]);
+                rentals.add(new Console(name, rentDay, dueDay, returnedDay, console));
+            }
+        }
+        return rentals;
+    }
+
+    /******************************************************************
+     * Parses a date written as month/day/year. Out of range days and
+     * months roll over the same way a lenient SimpleDateFormat does.
+     *
+     * @param text the date to parse
+     * @return the date as an epoch day
+     * @throws IOException if the text is not a date
+     *****************************************************************/
+    static int parseDate(String text) throws IOException {
+        int[] parts = new int[3];
+        int part = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                parts[part] = parts[part] * 10 + (c - '0');
+                digits++;
+            }
+            else if (c == '/' && digits > 0 && part < 2) {
+                part++;
+                digits = 0;
+            }
+            else {
+                throw new IOException("Not a date: " + text);
+            }
+        }
+        if (part != 2 || digits == 0)
+            throw new IOException("Not a date: " + text);
+        return DateMath.lenientEpochDay(parts[2], parts[0], parts[1]);
+    }
+
+    /******************************************************************
+     * Looks up a console by the name saveAsText writes for it.
+     *
+     * @param text the name of the console
+     * @return the console, or null if the name is not a console
+     *****************************************************************/
+    private static ConsoleTypes parseConsole(String text) {
+        for (ConsoleTypes console : CONSOLES)
+            if (console.name().equals(text))
+                return console;
+        return null;
+    }
+}
@@ -0,0 +1,205 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*************************************************************************
+ * Rebuilds every screen at once. Small lists are rebuilt one screen at
+ * a time. Above a threshold the rows are cut into chunks that are
+ * scanned on the fork-join pool; each chunk is read once, every row is
+ * checked against every screen in that one pass, and each screen's
+ * part of the chunk is sorted on the spot. The sorted parts of each
+ * screen are then merged, with the screens merged in parallel.
+ ************************************************************************/
+
+public final class ViewBuilder {
+
+    /** fewest rentals a rebuild is done in parallel for, by default */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 100_000;
+
+    /** chunks are not made smaller than this many rows */
+    private static final int MIN_CHUNK_ROWS = 1 << 14;
+
+    /** fewest rentals a rebuild is done in parallel for */
+    private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    private ViewBuilder() {
+    }
+
+    /******************************************************************
+     * Sets the fewest rentals a rebuild is done in parallel for.
+     *
+     * @param rows the threshold; Integer.MAX_VALUE never goes parallel
+     *****************************************************************/
+    public static void setParallelThreshold(int rows) {
+        if (rows < 0)
+            throw new IllegalArgumentException("Threshold must not be negative");
+        parallelThreshold = rows;
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /******************************************************************
+     * Rebuilds every view from all rentals. Gives the same rows as
+     * calling ScreenView.rebuild on each view.
+     *
+     * @param views the views to rebuild
+     * @param allRentals every rental in the store
+     * @param columns the same rentals stored by column
+     *****************************************************************/
+    public static void rebuildAll(Collection<ScreenView> views, List<Rental> allRentals,
+                                  RentalColumns columns) {
+        int size = columns.size();
+        int workers = Runtime.getRuntime().availableProcessors();
+        if (size < parallelThreshold || workers < 2) {
+            for (ScreenView view : views)
+                view.rebuild(allRentals, columns);
+            return;
+        }
+
+        // views an index narrows down are rebuilt on their own
+        ArrayList<ScreenView> scanned = new ArrayList<>();
+        ArrayList<ScreenView> indexed = new ArrayList<>();
+        for (ScreenView view : views) {
+            view.beforeRebuild();
+            if (!view.usesIndex())
+                scanned.add(view);
+            else
+                indexed.add(view);
+        }
+
+        // the ranks are computed once, before any thread reads them
+        int[] ranks = columns.renterRanks();
+        int chunkRows = Math.max(MIN_CHUNK_ROWS, size / (workers * 4));
+        int chunks = (size + chunkRows - 1) / chunkRows;
+
+        // parts.get(chunk)[view] is one view's sorted part of one chunk
+        List<Part[]> parts = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> scan(scanned, columns, ranks,
+                        chunk * chunkRows, Math.min(size, (chunk + 1) * chunkRows)))
+                .collect(Collectors.toList());
+
+        IntStream.range(0, scanned.size() + indexed.size()).parallel().forEach(v -> {
+            if (v >= scanned.size()) {
+                indexed.get(v - scanned.size()).rebuild(allRentals, columns);
+                return;
+            }
+            ArrayList<Part> level = new ArrayList<>(parts.size());
+            for (Part[] chunk : parts)
+                level.add(chunk[v]);
+
+            // merges neighbours pairwise so each row is copied log(chunks) times
+            while (level.size() > 1) {
+                ArrayList<Part> next = new ArrayList<>((level.size() + 1) / 2);
+                for (int i = 0; i + 1 < level.size(); i += 2)
+                    next.add(merge(level.get(i), level.get(i + 1)));
+                if (level.size() % 2 == 1)
+                    next.add(level.get(level.size() - 1));
+                level = next;
+            }
+            Part merged = level.get(0);
+            scanned.get(v).fill(allRentals, merged.rows, merged.count);
+        });
+    }
+
+    /******************************************************************
+     * Reads a range of rows once, sorting each row into the part of
+     * every view it belongs on.
+     *
+     * @param views the views to fill
+     * @param columns the rentals stored by column
+     * @param ranks the renter name ranks of the columns
+     * @param from the first row of the range
+     * @param to the row just past the range
+     * @return the sorted part of every view, in the order of views
+     *****************************************************************/
+    private static Part[] scan(List<ScreenView> views, RentalColumns columns, int[] ranks,
+                               int from, int to) {
+        byte[] kind = columns.kind;
+        int[] rentedOn = columns.rentedOn;
+        int[] dueBack = columns.dueBack;
+        int[] returned = columns.returned;
+        int[] renter = columns.renter;
+
+        ScreenView[] targets = views.toArray(new ScreenView[0]);
+        Part[] parts = new Part[targets.length];
+        for (int v = 0; v < parts.length; v++)
+            parts[v] = new Part(to - from);
+
+        for (int row = from; row < to; row++) {
+            for (int v = 0; v < targets.length; v++) {
+                if (targets[v].accepts(kind[row], rentedOn[row], dueBack[row], returned[row])) {
+                    Part part = parts[v];
+                    part.rows[part.count] = row;
+                    part.keys[part.count] = targets[v].sortKey(kind[row], rentedOn[row],
+                            dueBack[row], ranks[renter[row] + 1]);
+                    part.count++;
+                }
+            }
+        }
+
+        for (Part part : parts)
+            RentalColumns.sortStable(part.keys, part.rows, part.count);
+        return parts;
+    }
+
+    /******************************************************************
+     * Merges two sorted parts. Rows with equal keys are taken from the
+     * first part first, which holds the earlier rows, so the merge
+     * keeps list order the way a stable sort does.
+     *
+     * @param first the part of the earlier rows
+     * @param second the part of the later rows
+     * @return a new part holding both
+     *****************************************************************/
+    private static Part merge(Part first, Part second) {
+        Part merged = new Part(first.count + second.count);
+        int i = 0;
+        int j = 0;
+        while (i < first.count && j < second.count) {
+            if (Long.compareUnsigned(second.keys[j], first.keys[i]) < 0) {
+                merged.keys[merged.count] = second.keys[j];
+                merged.rows[merged.count++] = second.rows[j++];
+            }
+            else {
+                merged.keys[merged.count] = first.keys[i];
+                merged.rows[merged.count++] = first.rows[i++];
+            }
+        }
+        while (i < first.count) {
+            merged.keys[merged.count] = first.keys[i];
+            merged.rows[merged.count++] = first.rows[i++];
+        }
+        while (j < second.count) {
+            merged.keys[merged.count] = second.keys[j];
+            merged.rows[merged.count++] = second.rows[j++];
+        }
+        return merged;
+    }
+
+    /*********************************************************************
+     * Rows of one view with their sort keys, the first count entries
+     * of both arrays are used.
+     *********************************************************************/
+    private static class Part {
+
+        /** sort key of every row */
+        final long[] keys;
+
+        /** the rows */
+        final int[] rows;
+
+        /** number of entries in use */
+        int count;
+
+        Part(int capacity) {
+            keys = new long[capacity];
+            rows = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package project2;
+
+import java.util.ArrayList;
+
+/*************************************************************************
+ * Rentals for the benchmarks, made by a RentalGenerator with a fixed
+ * seed so every run measures the same data.
+ ************************************************************************/
+
+final class BenchmarkData {
+
+    /** seed used by every benchmark */
+    static final long SEED = 163;
+
+    private BenchmarkData() {
+    }
+
+    /******************************************************************
+     * Makes a list of rentals that is the same on every run.
+     *
+     * @param count how many rentals to make
+     * @param seed the seed of the generator
+     * @return the new rentals
+     *****************************************************************/
+    static ArrayList<Rental> rentals(int count, long seed) {
+        ArrayList<Rental> rentals = new ArrayList<>(count);
+        new RentalGenerator(count, seed).forEachRemaining(rentals::add);
+        return rentals;
+    }
+
+    /******************************************************************
+     * Makes a ListModel holding exactly the rentals given, with every
+     * screen built.
+     *
+     * @param rentals the rentals, owned by the model afterwards
+     * @return the new model
+     *****************************************************************/
+    static ListModel model(ArrayList<Rental> rentals) {
+        ListModel model = new ListModel();
+        model.replaceRentals(rentals, null, null);
+        return model;
+    }
+}
@@ -0,0 +1,41 @@
+package project2;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*************************************************************************
+ * Runs the benchmarks with the usual JMH command line, except that the
+ * results are written as JSON to jmh-result.json unless -rf or -rff
+ * say otherwise, so runs of different releases can be compared.
+ ************************************************************************/
+
+public final class BenchmarkMain {
+
+    /** file the results are written to when none is given */
+    public static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+
+        // listing and help need no results, JMH's own main handles them
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+            if (!cmd.getResult().hasValue())
+                options.result(DEFAULT_RESULT);
+        }
+        new Runner(options.build()).run();
+    }
+}
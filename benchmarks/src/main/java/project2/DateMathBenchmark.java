@@ -0,0 +1,78 @@
+package project2;
+
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*************************************************************************
+ * Cost of counting days between dates, the way the screens count the
+ * cost and the days late of every rental.
+ ************************************************************************/
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateMathBenchmark {
+
+    /** days between the two dates */
+    @Param({"1", "30", "3650"})
+    public int days;
+
+    /** the earlier epoch day */
+    private int startDay;
+
+    /** the later epoch day */
+    private int endDay;
+
+    /** startDay as a calendar */
+    private GregorianCalendar startDate;
+
+    /** endDay as a calendar */
+    private GregorianCalendar endDate;
+
+    /** a moment during endDay */
+    private long nowMillis;
+
+    @Setup
+    public void setUp() {
+        nowMillis = System.currentTimeMillis();
+        endDay = DateMath.today(nowMillis);
+        startDay = endDay - days;
+        startDate = DateMath.toCalendar(startDay);
+        endDate = DateMath.toCalendar(endDay);
+    }
+
+    @Benchmark
+    public int daysBetween() {
+        return DateMath.daysBetween(startDay, endDay);
+    }
+
+    @Benchmark
+    public int daysBetweenCalendars() {
+        return DateMath.daysBetween(startDate, endDate);
+    }
+
+    @Benchmark
+    public int daysLate() {
+        return DateMath.daysLate(startDay, nowMillis);
+    }
+
+    @Benchmark
+    public int daysLateCalendar() {
+        return DateMath.daysLate(startDate, nowMillis);
+    }
+}
@@ -0,0 +1,120 @@
+package project2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*************************************************************************
+ * Cost of saving and loading every rental as a database file and as a
+ * text file. Loading includes building the screens, as it does for the
+ * user. The journal is closed before every save, so each save writes
+ * the whole file instead of only syncing the journal.
+ ************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PersistenceBenchmark {
+
+    /** number of rentals in the store */
+    @Param({"1000", "100000", "1000000"})
+    public int rentals;
+
+    /** directory holding the files, deleted afterwards */
+    private File directory;
+
+    /** database file the save benchmarks write */
+    private String databaseOut;
+
+    /** database file the load benchmark reads */
+    private String databaseIn;
+
+    /** text file the save benchmarks write */
+    private String textOut;
+
+    /** text file the load benchmark reads */
+    private String textIn;
+
+    /** a model holding the rentals */
+    private ListModel model;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rental-bench").toFile();
+        databaseOut = new File(directory, "out.db").getPath();
+        databaseIn = new File(directory, "in.db").getPath();
+        textOut = new File(directory, "out.txt").getPath();
+        textIn = new File(directory, "in.txt").getPath();
+
+        model = BenchmarkData.model(BenchmarkData.rentals(rentals, BenchmarkData.SEED));
+        model.saveDatabase(databaseIn);
+        model.closeJournal();
+        model.saveAsText(textIn);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.closeJournal();
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                file.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public ListModel saveDatabase() {
+        model.closeJournal();
+        model.saveDatabase(databaseOut);
+        return model;
+    }
+
+    @Benchmark
+    public int loadDatabase() {
+        model.loadDatabase(databaseIn);
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    public int databaseRoundTrip() {
+        model.closeJournal();
+        model.saveDatabase(databaseOut);
+        model.loadDatabase(databaseOut);
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    public boolean saveAsText() {
+        return model.saveAsText(textOut);
+    }
+
+    @Benchmark
+    public int loadFromText() {
+        model.loadFromText(textIn);
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    public int textRoundTrip() {
+        model.saveAsText(textOut);
+        model.loadFromText(textOut);
+        return model.getRowCount();
+    }
+}
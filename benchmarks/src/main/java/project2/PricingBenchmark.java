@@ -0,0 +1,77 @@
+package project2;
+
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*************************************************************************
+ * Cost of pricing one rental, for games and consoles and for rentals
+ * of different lengths, by epoch day and by GregorianCalendar.
+ ************************************************************************/
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    /** days between renting and checking out */
+    @Param({"1", "7", "30", "365"})
+    public int days;
+
+    /** game rented days before checkOutDay */
+    private Game game;
+
+    /** console rented days before checkOutDay */
+    private Console console;
+
+    /** epoch day the rentals are priced on */
+    private int checkOutDay;
+
+    /** checkOutDay as a calendar */
+    private GregorianCalendar checkOut;
+
+    @Setup
+    public void setUp() {
+        checkOutDay = DateMath.today(System.currentTimeMillis());
+        checkOut = DateMath.toCalendar(checkOutDay);
+        int rentedOn = checkOutDay - days;
+        game = new Game("Bob", rentedOn, rentedOn + 1, Rental.NO_DATE,
+                "Halo", ConsoleTypes.XBoxOneS);
+        console = new Console("Bob", rentedOn, rentedOn + 1, Rental.NO_DATE,
+                ConsoleTypes.PlayStation4Pro);
+    }
+
+    @Benchmark
+    public double gameCost() {
+        return game.getCost(checkOutDay);
+    }
+
+    @Benchmark
+    public double consoleCost() {
+        return console.getCost(checkOutDay);
+    }
+
+    @Benchmark
+    public double gameCostByCalendar() {
+        return game.getCost(checkOut);
+    }
+
+    @Benchmark
+    public double consoleCostByCalendar() {
+        return console.getCost(checkOut);
+    }
+}
@@ -0,0 +1,76 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*************************************************************************
+ * Cost of building the screens from all rentals. updateScreen rebuilds
+ * every screen of a ListModel while one screen is shown, the way it
+ * runs after a file is loaded; rebuildView builds the one screen alone.
+ ************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ScreenBenchmark {
+
+    /** number of rentals in the store */
+    @Param({"1000", "100000", "1000000"})
+    public int rentals;
+
+    /** the screen that is shown */
+    @Param({"CurrentRentalStatus", "ReturnedItems", "DueWithInWeek",
+            "DueWithinWeekGamesFirst", "Cap14DaysOverdue", "EveryThingScreen",
+            "LateRentalScreen"})
+    public ScreenDisplay display;
+
+    /** a model holding the rentals and showing display */
+    private ListModel model;
+
+    /** the rentals of model */
+    private ArrayList<Rental> allRentals;
+
+    /** allRentals stored by column */
+    private RentalColumns columns;
+
+    /** a view of display, not part of model */
+    private ScreenView view;
+
+    @Setup
+    public void setUp() {
+        allRentals = BenchmarkData.rentals(rentals, BenchmarkData.SEED);
+        model = BenchmarkData.model(allRentals);
+        model.setDisplay(display);
+        columns = RentalColumns.of(allRentals);
+        view = ScreenView.forDisplay(display);
+    }
+
+    @Benchmark
+    public int updateScreen() {
+        // ending the outermost bulk session runs updateScreen
+        model.beginBulk();
+        model.endBulk();
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    public int rebuildView() {
+        view.rebuild(allRentals, columns);
+        return view.getRows().size();
+    }
+}